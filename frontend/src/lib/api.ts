@@ -65,7 +65,16 @@ export interface LoginRequest {
 
 export interface LoginResponse {
   email: string;
-  jwtToken: string;
+  token: string;
+}
+
+// /login?bootstrap=true: the token plus everything needed to start the session, no /profile call needed
+export interface LoginBootstrapResponse {
+  email: string;
+  token: string;
+  expiresAt: number;
+  accountVerified: boolean;
+  profile: ProfileResponse;
 }
 
 export interface ProfileResponse {
@@ -101,6 +110,15 @@ export const authApi = {
     return response.data;
   },
 
+  loginWithBootstrap: async (data: LoginRequest): Promise<LoginBootstrapResponse> => {
+    const response = await api.post<LoginBootstrapResponse>('/login', data, { params: { bootstrap: true } });
+    return response.data;
+  },
+
+  logout: async (): Promise<void> => {
+    await api.post('/logout');
+  },
+
   getProfile: async (): Promise<ProfileResponse> => {
     const response = await api.get<ProfileResponse>('/profile');
     return response.data;
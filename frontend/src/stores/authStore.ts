@@ -41,11 +41,13 @@ export const useAuthStore = create<AuthState>()(
       login: async (email, password) => {
         set({ isLoading: true });
         try {
-          const response = await authApi.login({ email, password });
-          get().setToken(response.jwtToken);
-          
-          // Fetch user profile after login
-          await get().fetchProfile();
+          // One round trip: the login response already carries the profile
+          const response = await authApi.loginWithBootstrap({ email, password });
+          get().setToken(response.token);
+          set({
+            user: { ...response.profile, isAccountVerified: response.accountVerified },
+            isAuthenticated: true,
+          });
         } catch (error) {
           throw new Error(getErrorMessage(error));
         } finally {
@@ -73,6 +75,8 @@ export const useAuthStore = create<AuthState>()(
       },
 
       logout: () => {
+        // ends the server side session too, the local state is cleared either way
+        authApi.logout().catch(() => undefined);
         localStorage.removeItem('jwtToken');
         set({ user: null, token: null, isAuthenticated: false });
       },
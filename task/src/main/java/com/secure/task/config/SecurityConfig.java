@@ -2,6 +2,9 @@ package com.secure.task.config;
 
 import java.util.List;
 
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -18,9 +21,15 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
 
+import com.secure.task.filter.ConcurrencyLimitFilter;
+import com.secure.task.filter.IdempotencyFilter;
 import com.secure.task.filter.JwtFilter;
 import com.secure.task.services.AppUserDetailsService;
+import com.secure.task.util.BCryptCostCalibrator;
+import com.secure.task.util.BCryptStrengthStore;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 
 
@@ -30,8 +39,20 @@ public class SecurityConfig {
     
     private final AppUserDetailsService appUserDetailsService;
     private final JwtFilter jwtFilter;
+    private final ConcurrencyLimitFilter concurrencyLimitFilter;
+    private final IdempotencyFilter idempotencyFilter;
     private final CustomAuthenticationEntryPoint customAuthenticationEntryPoint;
 
+    // fixed cost, anything below 4 means use the fleet wide cost stored in bcrypt_strength (calibrated by the first node)
+    @Value("${security.bcrypt.strength:-1}")
+    private int bcryptStrength;
+    @Value("${security.bcrypt.target-millis:250}")
+    private long bcryptTargetMillis;
+    @Value("${security.bcrypt.min-strength:10}")
+    private int bcryptMinStrength;
+    @Value("${security.bcrypt.max-strength:14}")
+    private int bcryptMaxStrength;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http.cors(Customizer.withDefaults())
@@ -41,14 +62,32 @@ public class SecurityConfig {
                 .anyRequest().permitAll())
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .logout(logout -> logout.disable())
+            // resolves jwts or opaque session ids, whichever TokenService auth.token-mode selects
             .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class)
+            // sheds load before any token parsing or user lookups happen
+            .addFilterBefore(concurrencyLimitFilter, JwtFilter.class)
+            // after the jwt filter so keys of authenticated calls are scoped to the user
+            .addFilterAfter(idempotencyFilter, JwtFilter.class)
             .exceptionHandling(ex -> ex.authenticationEntryPoint(customAuthenticationEntryPoint));
         return http.build();
     }
 
     @Bean 
-    public BCryptPasswordEncoder passwordEncoder(){
-        return new BCryptPasswordEncoder();
+    public BCryptPasswordEncoder passwordEncoder(MeterRegistry meterRegistry, DataSource dataSource){
+        int strength;
+        if(isStrengthPinned()){
+            strength = bcryptStrength;
+        } else {
+            BCryptStrengthStore store = new BCryptStrengthStore(dataSource);
+            store.createTableIfMissing();
+            BCryptCostCalibrator calibrator = new BCryptCostCalibrator(bcryptTargetMillis, bcryptMinStrength, bcryptMaxStrength);
+            strength = store.loadOrCalibrate(calibrator::calibrate, bcryptMinStrength);
+        }
+        Gauge.builder("app.bcrypt.strength", () -> strength)
+                .description("bcrypt cost new hashes are created with")
+                .tag("source", isStrengthPinned() ? "pinned" : "stored")
+                .register(meterRegistry);
+        return new BCryptPasswordEncoder(strength);
     }
 
     @Bean
@@ -61,7 +100,7 @@ public class SecurityConfig {
         CorsConfiguration config = new CorsConfiguration();
         config.setAllowedOrigins(List.of("http://localhost:5173"));
         config.setAllowedMethods(List.of("POST", "GET", "PUT", "PATCH", "DELETE", "OPTIONS"));
-        config.setAllowedHeaders(List.of("Authorization", "Content-Type"));
+        config.setAllowedHeaders(List.of("Authorization", "Content-Type", IdempotencyFilter.IDEMPOTENCY_KEY_HEADER));
         config.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -70,10 +109,17 @@ public class SecurityConfig {
     }
 
     @Bean
-    public AuthenticationManager authenticationManager() {
+    public AuthenticationManager authenticationManager(BCryptPasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider();
         authenticationProvider.setUserDetailsService(appUserDetailsService);
-        authenticationProvider.setPasswordEncoder(passwordEncoder());
+        authenticationProvider.setPasswordEncoder(passwordEncoder);
+        // hashes with a lower cost than the encoder's get rehashed after a successful login. pinned or stored,
+        // that cost is the same on every node, so a hash is never upgraded past what the others can verify in time
+        authenticationProvider.setUserDetailsPasswordService(appUserDetailsService);
         return new ProviderManager(authenticationProvider);
     }
+
+    private boolean isStrengthPinned() {
+        return bcryptStrength >= 4;
+    }
 }
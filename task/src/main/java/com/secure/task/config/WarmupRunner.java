@@ -0,0 +1,159 @@
+package com.secure.task.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.secure.task.io.AuthRequest;
+import com.secure.task.io.ProfileResponse;
+import com.secure.task.repositories.UserRepository;
+import com.secure.task.sharding.ShardRoutingDataSource;
+import com.secure.task.util.JwtUtil;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+
+// runs the hot paths with synthetic data before the instance reports ready. runners finish before
+// ApplicationReadyEvent, which is what flips the readiness probe to ACCEPTING_TRAFFIC, so the load balancer
+// only sends traffic once the jit has seen bcrypt, jwt and jackson and the connection pool is full
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmupRunner.class);
+
+    private static final String SYNTHETIC_EMAIL = "warmup@warmup.invalid";
+
+    private final BCryptPasswordEncoder passwordEncoder;
+    private final JwtUtil jwtUtil;
+    private final ObjectMapper objectMapper;
+    private final DataSource dataSource;
+    private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${warmup.bcrypt-iterations:5}")
+    private int bcryptIterations;
+
+    @Value("${warmup.iterations:2000}")
+    private int iterations;
+
+    @Value("${warmup.query-iterations:50}")
+    private int queryIterations;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        long start = System.nanoTime();
+
+        warm("bcrypt", this::warmBcrypt);
+        warm("jwt", this::warmJwt);
+        warm("jackson", this::warmJackson);
+        warm("connection-pool", this::fillConnectionPools);
+        warm("repository", this::warmRepository);
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("warm-up finished in {} ms", millis);
+    }
+
+    private void warm(String phase, WarmupPhase work) throws Exception {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        work.run();
+        sample.stop(meterRegistry.timer("app.warmup.duration", "phase", phase));
+    }
+
+    private void warmBcrypt() {
+        String hash = passwordEncoder.encode("warmup-password");
+        for (int i = 0; i < bcryptIterations; i++) {
+            passwordEncoder.matches("warmup-password-" + i, hash);
+        }
+    }
+
+    private void warmJwt() {
+        UserDetails user = new User(SYNTHETIC_EMAIL, "", List.of());
+        for (int i = 0; i < iterations; i++) {
+            String token = jwtUtil.generateToken(user);
+            jwtUtil.extractEmail(token);
+            jwtUtil.validateToken(token, user);
+            // the full jjwt parse is still the fallback path, keep it warm too
+            jwtUtil.extractClaims(token, claims -> claims.getSubject());
+        }
+    }
+
+    private void warmJackson() throws Exception {
+        ProfileResponse profile = ProfileResponse.builder()
+                .userId("00000000-0000-0000-0000-000000000000")
+                .name("warm up")
+                .email(SYNTHETIC_EMAIL)
+                .isAccountVerified(true)
+                .build();
+        byte[] request = objectMapper.writeValueAsBytes(new AuthRequest(SYNTHETIC_EMAIL, "warmup-password"));
+        for (int i = 0; i < iterations; i++) {
+            objectMapper.writeValueAsBytes(profile);
+            objectMapper.readValue(request, AuthRequest.class);
+        }
+    }
+
+    // opens minimum-idle connections on every pool at once so none are still being created under the first requests
+    private void fillConnectionPools() throws SQLException {
+        for (HikariDataSource pool : hikariPools()) {
+            List<Connection> held = new ArrayList<>();
+            try {
+                for (int i = 0; i < pool.getMinimumIdle(); i++) {
+                    Connection connection = pool.getConnection();
+                    held.add(connection);
+                    connection.isValid(5);
+                }
+            } finally {
+                for (Connection connection : held) {
+                    connection.close();
+                }
+            }
+        }
+    }
+
+    // derived queries, hibernate's query plan cache and the driver's statement paths
+    private void warmRepository() {
+        for (int i = 0; i < queryIterations; i++) {
+            userRepository.existsByEmail(SYNTHETIC_EMAIL);
+            userRepository.findByEmail(SYNTHETIC_EMAIL);
+        }
+    }
+
+    private Collection<HikariDataSource> hikariPools() throws SQLException {
+        List<HikariDataSource> pools = new ArrayList<>();
+        if (dataSource instanceof ShardRoutingDataSource routing) {
+            for (DataSource shard : routing.getShardDataSources().values()) {
+                if (shard instanceof HikariDataSource hikari) {
+                    pools.add(hikari);
+                }
+            }
+        } else if (dataSource.isWrapperFor(HikariDataSource.class)) {
+            pools.add(dataSource.unwrap(HikariDataSource.class));
+        }
+        return pools;
+    }
+
+    @FunctionalInterface
+    private interface WarmupPhase {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,54 @@
+package com.secure.task.controllers;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.CurrentSecurityContext;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.secure.task.services.UserExportService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequiredArgsConstructor
+public class AdminController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final UserExportService userExportService;
+
+    // there are no roles yet, admins are the emails listed here
+    @Value("${admin.emails:}")
+    private List<String> adminEmails;
+
+    // eg;- /admin/users/export?verified=true&createdFrom=2025-01-01T00:00:00Z
+    @GetMapping("/admin/users/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@CurrentSecurityContext(expression = "authentication?.name") String email,
+                                                             @RequestParam(required = false) Boolean verified,
+                                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant createdFrom,
+                                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant createdTo)
+    {
+        if(email == null){
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+        }
+        if(!adminEmails.contains(email)){
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "admin only");
+        }
+
+        Timestamp from = createdFrom != null ? Timestamp.from(createdFrom) : null;
+        Timestamp to = createdTo != null ? Timestamp.from(createdTo) : null;
+        StreamingResponseBody body = out -> userExportService.export(verified, from, to, out);
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+}
@@ -13,8 +13,8 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.annotation.CurrentSecurityContext;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -24,11 +24,14 @@ import org.springframework.web.bind.annotation.RequestParam;
 
 import com.secure.task.io.AuthRequest;
 import com.secure.task.io.AuthResponse;
+import com.secure.task.io.LoginBootstrapResponse;
 import com.secure.task.io.ResetPasswordRequest;
-import com.secure.task.services.AppUserDetailsService;
+import com.secure.task.services.AppUser;
+import com.secure.task.filter.JwtFilter;
 import com.secure.task.services.ProfileService;
-import com.secure.task.util.JwtUtil;
+import com.secure.task.services.TokenService;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
@@ -38,26 +41,35 @@ import lombok.RequiredArgsConstructor;
 public class AuthController {
     
     private final AuthenticationManager authenticationManager;
-    private final AppUserDetailsService appUserDetailsService;
-    private final JwtUtil jwtUtil;
+    private final TokenService tokenService;
     private final ProfileService profileService;
     
+    // bootstrap=true also returns the profile and token expiry, so the frontend can skip its /profile call
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody AuthRequest authRequest) {
+    public ResponseEntity<?> login(@RequestBody AuthRequest authRequest,
+                                   @RequestParam(defaultValue = "false") boolean bootstrap) {
         try{
             // if credentials match, use authenticate to authenticate then do futher stuff
-            authenticate(authRequest.getEmail(), authRequest.getPassword()); 
-            // go to authUserDetailsService and load user by email you get from authRequest, store in userDetails somehow
-            final UserDetails userDetails = appUserDetailsService.loadUserByUsername(authRequest.getEmail());
-            final String jwtToken = jwtUtil.generateToken(userDetails);
+            // the principal is the user the provider just loaded, no need to load it again
+            final AppUser user = (AppUser) authenticate(authRequest.getEmail(), authRequest.getPassword()).getPrincipal();
+            // a jwt or an opaque session id, depending on auth.token-mode
+            final String jwtToken = tokenService.issueToken(user);
+            Duration timeToLive = tokenService.getTimeToLive();
             ResponseCookie cookie = ResponseCookie.from("jwt", jwtToken)
                 .httpOnly(true)
                 .path("/")
-                .maxAge(Duration.ofDays(1))
+                .maxAge(timeToLive)
                 .sameSite("Strict")
                 .build();
-            return ResponseEntity.ok().header(HttpHeaders.SET_COOKIE, cookie.toString())
-                    .body(new AuthResponse(authRequest.getEmail(), jwtToken));
+            if(!bootstrap){
+                return ResponseEntity.ok().header(HttpHeaders.SET_COOKIE, cookie.toString())
+                        .body(new AuthResponse(authRequest.getEmail(), jwtToken));
+            }
+
+            LoginBootstrapResponse response = new LoginBootstrapResponse(user.getUsername(), jwtToken,
+                    System.currentTimeMillis() + timeToLive.toMillis(),
+                    user.getProfile().isAccountVerified(), user.getProfile());
+            return ResponseEntity.ok().header(HttpHeaders.SET_COOKIE, cookie.toString()).body(response);
         } 
         catch(BadCredentialsException ex) { // if email, password wrong, use this
             Map<String, Object> error = new HashMap<>();                        
@@ -81,10 +93,26 @@ public class AuthController {
         }
     }
 
-    private void authenticate(String email, String password) {
-        authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(email, password));
+    private Authentication authenticate(String email, String password) {
+        return authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(email, password));
     }  
 
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(HttpServletRequest request) {
+        String token = JwtFilter.resolveToken(request);
+        if(token != null){
+            // ends a session right away in session mode, a jwt just loses its cookie
+            tokenService.revoke(token);
+        }
+        ResponseCookie cookie = ResponseCookie.from("jwt", "")
+            .httpOnly(true)
+            .path("/")
+            .maxAge(Duration.ZERO)
+            .sameSite("Strict")
+            .build();
+        return ResponseEntity.noContent().header(HttpHeaders.SET_COOKIE, cookie.toString()).build();
+    }
+
     @GetMapping("/is-authenticated")
     public ResponseEntity<Boolean> isAuthenticated(@CurrentSecurityContext(expression = "authentication?.name") String email){
         return ResponseEntity.ok(email != null);
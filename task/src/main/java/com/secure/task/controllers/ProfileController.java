@@ -14,10 +14,16 @@ import org.springframework.web.bind.annotation.RequestBody;
 
 import com.secure.task.io.ProfileRequest;
 import com.secure.task.io.ProfileResponse;
+import com.secure.task.io.ProfileVersion;
 
 import org.springframework.security.core.annotation.CurrentSecurityContext;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+
+import jakarta.servlet.http.HttpServletResponse;
 
 
 
@@ -37,8 +43,26 @@ public class ProfileController {
     }
 
     @GetMapping("/profile")
-    public ProfileResponse getProfile(@CurrentSecurityContext(expression = "authentication?.name") String email){
-        return profileService.getProfile(email);
+    public ProfileResponse getProfile(@CurrentSecurityContext(expression = "authentication?.name") String email,
+                                      WebRequest webRequest, HttpServletResponse servletResponse){
+        // let the browser keep the profile but revalidate it every time, security would otherwise send no-store
+        servletResponse.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+
+        // a conditional request is checked against the version columns only, which every node reads from the db.
+        // If-None-Match wins when both are sent, If-Modified-Since is only as precise as a second
+        if(webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null || webRequest.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null){
+            ProfileVersion current = profileService.getProfileVersion(email);
+            if(current != null && webRequest.checkNotModified(current.getETag(), current.getLastModified())){
+                return null; // 304, status, etag and last-modified headers are already set
+            }
+        }
+        // the validators sent with a body are always the ones of the row that body was built from
+        ProfileResponse response = profileService.getProfile(email);
+        servletResponse.setHeader(HttpHeaders.ETAG, response.getETag());
+        if(response.getLastModified() >= 0){
+            servletResponse.setDateHeader(HttpHeaders.LAST_MODIFIED, response.getLastModified());
+        }
+        return response;
     }
     
 }
@@ -11,6 +11,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.NoArgsConstructor;
@@ -46,6 +47,10 @@ public class UserEntity {
     @UpdateTimestamp
     private Timestamp updatedAt;
 
+    // shard this row was read from when sharding is on, not persisted
+    @Transient
+    private String shard;
+
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
@@ -82,4 +87,7 @@ public class UserEntity {
     public Timestamp getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(Timestamp updatedAt) { this.updatedAt = updatedAt; }
 
+    public String getShard() { return shard; }
+    public void setShard(String shard) { this.shard = shard; }
+
 }
@@ -0,0 +1,185 @@
+package com.secure.task.filter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.secure.task.util.AdaptiveConcurrencyLimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// sheds load before it reaches the jwt filter. every endpoint class has its own adaptive limit, so when mysql
+// or the smtp relay slows down only the requests that depend on it are turned away, with a quick 503,
+// while cheap reads keep their own (and higher minimum) capacity instead of queueing behind them
+@Component
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    public enum EndpointClass {
+        // is-authenticated and the profile, cheap and what every page load needs, so they get the highest floor
+        READ(100, 20, 400),
+        // bcrypt bound
+        AUTH(20, 4, 100),
+        // waits on the smtp relay
+        MAIL(10, 2, 50),
+        DEFAULT(50, 5, 200);
+
+        private final int initialLimit;
+        private final int minLimit;
+        private final int maxLimit;
+
+        EndpointClass(int initialLimit, int minLimit, int maxLimit) {
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+        }
+    }
+
+    private static final List<String> READ_URLS = List.of("/is-authenticated", "/profile");
+    private static final List<String> AUTH_URLS = List.of("/login", "/register", "/reset-password");
+    private static final List<String> MAIL_URLS = List.of("/send-otp", "/send-reset-otp");
+
+    private final boolean enabled;
+    private final String retryAfterSeconds;
+    private final LongSupplier nanoClock;
+    private final Map<EndpointClass, AdaptiveConcurrencyLimit> limits = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> rejections = new EnumMap<>(EndpointClass.class);
+
+    @Autowired
+    public ConcurrencyLimitFilter(Environment environment, MeterRegistry meterRegistry) {
+        this(environment, meterRegistry, System::nanoTime);
+    }
+
+    // the clock is swappable so tests can play minutes of traffic without waiting for them
+    ConcurrencyLimitFilter(Environment environment, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.enabled = environment.getProperty("limiter.enabled", Boolean.class, true);
+        this.retryAfterSeconds = environment.getProperty("limiter.retry-after-seconds", "1");
+        this.nanoClock = nanoClock;
+        double tolerance = environment.getProperty("limiter.tolerance", Double.class, 1.5);
+        double smoothing = environment.getProperty("limiter.smoothing", Double.class, 0.2);
+        long baselineWindowNanos = TimeUnit.SECONDS.toNanos(
+                environment.getProperty("limiter.baseline-window-seconds", Long.class, 300L));
+
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            String prefix = "limiter." + endpointClass.name().toLowerCase(Locale.ROOT) + ".";
+            AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(
+                    environment.getProperty(prefix + "initial-limit", Integer.class, endpointClass.initialLimit),
+                    environment.getProperty(prefix + "min-limit", Integer.class, endpointClass.minLimit),
+                    environment.getProperty(prefix + "max-limit", Integer.class, endpointClass.maxLimit),
+                    tolerance, smoothing, baselineWindowNanos, nanoClock);
+            limits.put(endpointClass, limit);
+
+            String tag = endpointClass.name().toLowerCase(Locale.ROOT);
+            Gauge.builder("app.limiter.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                    .description("current adaptive concurrency limit")
+                    .tag("class", tag)
+                    .register(meterRegistry);
+            Gauge.builder("app.limiter.inflight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                    .description("requests currently admitted")
+                    .tag("class", tag)
+                    .register(meterRegistry);
+            rejections.put(endpointClass, Counter.builder("app.limiter.rejected")
+                    .description("requests shed with a 503")
+                    .tag("class", tag)
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // probes must answer even when everything else is being shed
+        return !enabled || request.getServletPath().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException{
+
+        EndpointClass endpointClass = classify(request);
+        AdaptiveConcurrencyLimit limit = limits.get(endpointClass);
+        if(!limit.tryAcquire()){
+            rejections.get(endpointClass).increment();
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", retryAfterSeconds);
+            response.setContentType("application/json");
+            response.getWriter().write("{\"error\": true, \"message\": \"server is busy, try again shortly\"}");
+            return;
+        }
+
+        long start = nanoClock.getAsLong();
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            async = request.isAsyncStarted();
+        } finally {
+            // an async response (the export) keeps its slot until it completes, its latency would only mislead
+            // the limit though. failures do count, a timed out query is exactly the slowdown the limit has to react to
+            if(async){
+                request.getAsyncContext().addListener(new ReleaseOnComplete(limit));
+            } else {
+                limit.release(nanoClock.getAsLong() - start);
+            }
+        }
+    }
+
+    public AdaptiveConcurrencyLimit getLimit(EndpointClass endpointClass) {
+        return limits.get(endpointClass);
+    }
+
+    // onComplete also follows a timeout or an error, so it is the one place the slot is given back
+    private static final class ReleaseOnComplete implements AsyncListener {
+        private final AdaptiveConcurrencyLimit limit;
+
+        private ReleaseOnComplete(AdaptiveConcurrencyLimit limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            limit.releaseWithoutSample();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        // a restarted async cycle drops its listeners, stay on it
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+
+    static EndpointClass classify(HttpServletRequest request) {
+        String path = request.getServletPath();
+        if("GET".equals(request.getMethod()) && READ_URLS.contains(path)){
+            return EndpointClass.READ;
+        }
+        if(AUTH_URLS.contains(path)){
+            return EndpointClass.AUTH;
+        }
+        if(MAIL_URLS.contains(path)){
+            return EndpointClass.MAIL;
+        }
+        return EndpointClass.DEFAULT;
+    }
+}
@@ -0,0 +1,58 @@
+package com.secure.task.filter;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// times every request during the first minute after the instance went ready, tagged with whether warm-up ran,
+// so app.http.first-minute can be compared between instances started with and without warm-up
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class FirstMinuteLatencyFilter extends OncePerRequestFilter {
+
+    private static final long WINDOW_NANOS = 60_000_000_000L;
+
+    private final Timer timer;
+    private volatile long readyAt = -1;
+
+    public FirstMinuteLatencyFilter(MeterRegistry meterRegistry,
+                                    @Value("${warmup.enabled:true}") boolean warmupEnabled) {
+        this.timer = Timer.builder("app.http.first-minute")
+                .description("request latency during the first minute after startup")
+                .tag("warmup", warmupEnabled ? "enabled" : "disabled")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        readyAt = System.nanoTime();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, java.io.IOException{
+        long start = System.nanoTime();
+        if(readyAt < 0 || start - readyAt > WINDOW_NANOS){
+            filterChain.doFilter(request, response);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.secure.task.filter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.secure.task.util.IdempotencyStore;
+import com.secure.task.util.IdempotencyStore.KeyReusedException;
+import com.secure.task.util.IdempotencyStore.StoredResponse;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+@Component
+@RequiredArgsConstructor
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private static final List<String> IDEMPOTENT_URLS = List.of("/register", "/send-otp", "/send-reset-otp");
+    private static final int MAX_KEY_LENGTH = 128;
+    // these endpoints take a few small fields, anything bigger is not worth buffering
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+
+    private final IdempotencyStore idempotencyStore;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+                || !IDEMPOTENT_URLS.contains(request.getServletPath())
+                || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException{
+
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if(key.isBlank() || key.length() > MAX_KEY_LENGTH){
+            writeError(response, HttpServletResponse.SC_BAD_REQUEST, "invalid idempotency key");
+            return;
+        }
+
+        // scope the key to the endpoint, caller and query so two clients picking the same key dont collide
+        String scopedKey = request.getServletPath() + "|" + currentUser() + "|" + request.getQueryString() + "|" + key;
+
+        // the body is read up front so it can be fingerprinted, the chain gets a copy
+        byte[] body = null;
+        if(!isFormRequest(request)){
+            body = request.getInputStream().readNBytes(MAX_BODY_BYTES + 1);
+            if(body.length > MAX_BODY_BYTES){
+                writeError(response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "request body too large");
+                return;
+            }
+            request = new CachedBodyRequest(request, body);
+        }
+        byte[] fingerprint = fingerprint(request, body);
+
+        CompletableFuture<StoredResponse> previous;
+        while(true){
+            try {
+                previous = idempotencyStore.begin(scopedKey, fingerprint);
+            } catch(KeyReusedException ex) {
+                // replaying here would hand this caller the response to somebody else's request
+                writeError(response, HttpStatus.UNPROCESSABLE_ENTITY.value(), ex.getMessage());
+                return;
+            }
+            if(previous == null){
+                break;
+            }
+            // answer a duplicate right away instead of parking a request thread (and a limiter slot) on the first one
+            if(!previous.isDone()){
+                response.setHeader("Retry-After", "1");
+                writeError(response, HttpServletResponse.SC_CONFLICT, "a request with this idempotency key is still in progress");
+                return;
+            }
+            StoredResponse stored = previous.join();
+            if(stored != null){
+                replay(stored, response);
+                return;
+            }
+            // the first attempt failed, try to take the key over and run it ourselves
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, wrapper);
+            int status = wrapper.getStatus();
+            // only successful responses are remembered, a failed attempt can simply be retried
+            if(status >= 200 && status < 300){
+                idempotencyStore.complete(scopedKey, new StoredResponse(status, wrapper.getContentType(), wrapper.getContentAsByteArray()));
+                completed = true;
+            }
+        } finally {
+            if(!completed){
+                idempotencyStore.abandon(scopedKey);
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private static boolean isFormRequest(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType != null && contentType.startsWith("application/x-www-form-urlencoded");
+    }
+
+    // sha-256 of the body, or of the parameters for form posts since reading their stream would hide them from spring
+    private static byte[] fingerprint(HttpServletRequest request, byte[] body) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch(NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+        if(body != null){
+            return digest.digest(body);
+        }
+        for(Map.Entry<String, String[]> parameter : request.getParameterMap().entrySet()){
+            digest.update(parameter.getKey().getBytes(StandardCharsets.UTF_8));
+            for(String value : parameter.getValue()){
+                digest.update((byte) 0);
+                digest.update(value.getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) 1);
+        }
+        return digest.digest();
+    }
+
+    private String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : "";
+    }
+
+    private void replay(StoredResponse stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.status());
+        if(stored.contentType() != null){
+            response.setContentType(stored.contentType());
+        }
+        response.setHeader("Idempotent-Replayed", "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    private void writeError(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\": true, \"message\": \"" + message + "\"}");
+    }
+
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return in.read(buffer, offset, length);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // the whole body is already in memory, so it is available (and then all read) straight away
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        listener.onDataAvailable();
+                        listener.onAllDataRead();
+                    } catch(IOException ex) {
+                        listener.onError(ex);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            Charset charset = getCharacterEncoding() != null ? Charset.forName(getCharacterEncoding()) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
@@ -11,7 +11,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import com.secure.task.services.AppUserDetailsService;
-import com.secure.task.util.JwtUtil;
+import com.secure.task.services.TokenService;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -25,7 +25,7 @@ import lombok.RequiredArgsConstructor;
 public class JwtFilter extends OncePerRequestFilter {
 
     private final AppUserDetailsService appUserDetailsService;
-    private final JwtUtil jwtUtil;
+    private final TokenService tokenService;
 
     private static final List<String> PUBLIC_URLS = List.of("/register", "/login", "/send-reset-otp", "/reset-password", "/logout");
     
@@ -39,42 +39,41 @@ public class JwtFilter extends OncePerRequestFilter {
             return;
         }
 
-        String jwt = null;
+        String jwt = resolveToken(request);
         String email = null;
 
+        // validate the token and set the security context
+        if (jwt != null){
+            // a jwt or an opaque session id, depending on auth.token-mode
+            email = tokenService.resolveSubject(jwt);
+            if(email != null && SecurityContextHolder.getContext().getAuthentication() == null){
+                UserDetails userDetails = appUserDetailsService.loadUserByUsername(email);
+                UsernamePasswordAuthenticationToken authenticationToken =
+                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    public static String resolveToken(HttpServletRequest request){
         // to check the authorization header
         final String authorizationHeader = request.getHeader("Authorization");
         if(authorizationHeader != null && authorizationHeader.startsWith("Bearer ")){
-            jwt = authorizationHeader.substring(7);
+            return authorizationHeader.substring(7);
         }
 
         //if header not found, check the cookies!
-        if (jwt == null){
-            Cookie[] cookies = request.getCookies();
-            if(cookies != null){
-                for (Cookie cookie : cookies) {
-                    if("jwt".equals(cookie.getName())){
-                        jwt = cookie.getValue();
-                        break;
-                    }
+        Cookie[] cookies = request.getCookies();
+        if(cookies != null){
+            for (Cookie cookie : cookies) {
+                if("jwt".equals(cookie.getName())){
+                    return cookie.getValue();
                 }
             }
         }
-
-        // validate the token and set the security context
-        if (jwt != null){
-            email = jwtUtil.extractEmail(jwt);
-            if(email != null && SecurityContextHolder.getContext().getAuthentication() == null){
-                UserDetails userDetails = appUserDetailsService.loadUserByUsername(email);
-                if(jwtUtil.validateToken(jwt, userDetails)){
-                    UsernamePasswordAuthenticationToken authenticationToken =
-                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                    authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authenticationToken);
-                }
-            }
-        }
-
-        filterChain.doFilter(request, response);
+        return null;
     }
 }
@@ -0,0 +1,17 @@
+package com.secure.task.io;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// /login?bootstrap=true, everything the frontend needs after signing in so it doesnt have to call /profile
+@Getter
+@AllArgsConstructor
+public class LoginBootstrapResponse {
+
+    private String email;
+    private String token;
+    // epoch millis
+    private long expiresAt;
+    private boolean accountVerified;
+    private ProfileResponse profile;
+}
@@ -1,5 +1,7 @@
 package com.secure.task.io;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import lombok.Builder;
 
 @Builder
@@ -9,9 +11,17 @@ public class ProfileResponse {
     private String name;
     private String email;
     private boolean isAccountVerified;
+    // version of the row this was built from, sent as the ETag header rather than in the body
+    private String eTag;
+    // updated_at of that row in millis, sent as the Last-Modified header, -1 when the row has none
+    private long lastModified;
 
     public String getUserId() { return userId; }
     public String getName() { return name; }
     public String getEmail() { return email; }
     public boolean isAccountVerified() { return isAccountVerified; }
+    @JsonIgnore
+    public String getETag() { return eTag; }
+    @JsonIgnore
+    public long getLastModified() { return lastModified; }
 }
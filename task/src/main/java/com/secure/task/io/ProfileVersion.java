@@ -0,0 +1,14 @@
+package com.secure.task.io;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// what a conditional /profile is validated against, read without loading the whole row
+@Getter
+@AllArgsConstructor
+public class ProfileVersion {
+
+    private String eTag;
+    // updated_at in millis, -1 when the row has none
+    private long lastModified;
+}
@@ -0,0 +1,18 @@
+package com.secure.task.io;
+
+import java.sql.Timestamp;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class UserExportRow {
+
+    private Long id;
+    private String userId;
+    private String name;
+    private String email;
+    private boolean isAccountVerified;
+    private Timestamp createdAt;
+}
@@ -1,13 +1,45 @@
 package com.secure.task.repositories;
 
+import java.sql.Timestamp;
+import java.util.List;
 import java.util.Optional;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import com.secure.task.entities.UserEntity;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface UserRepository extends JpaRepository<UserEntity, Long>{
     // hopefully this will do the job
     Optional<UserEntity> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    // just the columns the profile etag is made of, so a conditional /profile doesnt load the whole row
+    Optional<UserVersion> findVersionByEmail(String email);
+
+    interface UserVersion {
+        String getUserId();
+        Timestamp getUpdatedAt();
+    }
+
+    // keyset page: seeks past the last id instead of an OFFSET, so every page costs the same however deep it is.
+    // each page is a bounded LIMIT list, the memory bound comes from the page size and not from any driver cursor
+    @Query("select u from UserEntity u where u.id > :afterId"
+            + " and (:verified is null or u.isAccountVerified = :verified)"
+            + " and (:createdFrom is null or u.createdAt >= :createdFrom)"
+            + " and (:createdTo is null or u.createdAt < :createdTo)"
+            + " order by u.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<UserEntity> findPageAfter(@Param("afterId") Long afterId,
+                                   @Param("verified") Boolean verified,
+                                   @Param("createdFrom") Timestamp createdFrom,
+                                   @Param("createdTo") Timestamp createdTo,
+                                   Limit limit);
 }
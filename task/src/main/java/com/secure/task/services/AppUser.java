@@ -0,0 +1,29 @@
+package com.secure.task.services;
+
+import java.util.ArrayList;
+
+import org.springframework.security.core.userdetails.User;
+
+import com.secure.task.entities.UserEntity;
+import com.secure.task.io.ProfileResponse;
+
+// the principal AppUserDetailsService hands out, it keeps the profile of the row it was loaded from so login
+// can answer with it instead of looking the user up a second time
+public class AppUser extends User {
+
+    private final ProfileResponse profile;
+
+    public AppUser(UserEntity user, String password) {
+        super(user.getEmail(), password, new ArrayList<>());
+        this.profile = ProfileResponse.builder()
+                .userId(user.getUserId())
+                .name(user.getName())
+                .email(user.getEmail())
+                .isAccountVerified(user.isAccountVerified())
+                .eTag(ProfileServiceImp.eTagOf(user.getUserId(), user.getUpdatedAt()))
+                .lastModified(ProfileServiceImp.lastModifiedOf(user.getUpdatedAt()))
+                .build();
+    }
+
+    public ProfileResponse getProfile() { return profile; }
+}
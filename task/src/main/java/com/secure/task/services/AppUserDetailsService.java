@@ -1,18 +1,17 @@
 package com.secure.task.services;
-import java.util.ArrayList;
 
 import com.secure.task.entities.UserEntity;
 
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import com.secure.task.repositories.UserRepository;
 
 @Service
-public class AppUserDetailsService implements UserDetailsService{
+public class AppUserDetailsService implements UserDetailsService, UserDetailsPasswordService{
     
     private final UserRepository userRepository;
     public AppUserDetailsService(UserRepository userRepository){
@@ -23,7 +22,18 @@ public class AppUserDetailsService implements UserDetailsService{
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException{
         UserEntity existingUser = userRepository.findByEmail(email)
             .orElseThrow(() -> new UsernameNotFoundException("Email does not exist : " + email));
-        return new User(existingUser.getEmail(), existingUser.getPassword(), new ArrayList<>());
+        return new AppUser(existingUser, existingUser.getPassword());
+    }
+
+    // called by the auth provider after a successful login when the stored hash uses an outdated bcrypt cost
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword){
+        UserEntity existingUser = userRepository.findByEmail(user.getUsername())
+            .orElseThrow(() -> new UsernameNotFoundException("Email does not exist : " + user.getUsername()));
+        existingUser.setPassword(newPassword);
+        UserEntity savedUser = userRepository.save(existingUser);
+        // becomes the principal of the login, so it has to be an AppUser as well
+        return new AppUser(savedUser, newPassword);
     }
 
 } 
@@ -1,45 +1,54 @@
 package com.secure.task.services;
 
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.MailPreparationException;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 
 @Service
 @RequiredArgsConstructor
 public class EmailService {
-    
+
     private final JavaMailSender mailSender;
+    private final SmtpTransportPool transportPool;
 
     @Value("${spring.mail.properties.mail.smtp.from}")
     private String fromEmail;
 
     public void sendWelcomeEmail(String toEmail, String name){
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromEmail);
-        message.setTo(toEmail);
-        message.setSubject("Welcome gng!");
-        message.setText("Thanks for registering "+name+ " regards -Evangelion");
-        mailSender.send(message);
+        send(toEmail, EmailTemplate.WELCOME, name);
     }
 
     public void sendResetOTPEmail(String toEmail, String otp){
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromEmail);
-        message.setTo(toEmail);
-        message.setSubject("Reset OTP");
-        message.setText("use this OTP to reset your password " + otp);
-        mailSender.send(message);
+        send(toEmail, EmailTemplate.RESET_OTP, otp);
     }
 
     public void sendOtpEmail(String toEmail, String otp){
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromEmail);
-        message.setTo(toEmail);
-        message.setSubject("Verification OTP");
-        message.setText("use this OTP to verify your account " + otp);
-        mailSender.send(message);
+        send(toEmail, EmailTemplate.VERIFY_OTP, otp);
+    }
+
+    private void send(String toEmail, EmailTemplate template, String... args){
+        transportPool.send(List.of(buildMessage(toEmail, template, args)));
+    }
+
+    private MimeMessage buildMessage(String toEmail, EmailTemplate template, String... args){
+        MimeMessage message = mailSender.createMimeMessage();
+        try {
+            MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+            helper.setFrom(fromEmail);
+            helper.setTo(toEmail);
+            helper.setSubject(template.getSubject());
+            helper.setText(template.render(args));
+        } catch(MessagingException ex) {
+            throw new MailPreparationException("unable to build " + template + " email", ex);
+        }
+        return message;
     }
 }
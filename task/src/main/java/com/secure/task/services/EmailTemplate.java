@@ -0,0 +1,49 @@
+package com.secure.task.services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// mail templates are split into literal chunks once at class load, rendering just appends into a builder
+public enum EmailTemplate {
+
+    WELCOME("Welcome gng!", "Thanks for registering {0} regards -Evangelion"),
+    RESET_OTP("Reset OTP", "use this OTP to reset your password {0}"),
+    VERIFY_OTP("Verification OTP", "use this OTP to verify your account {0}");
+
+    private final String subject;
+    private final String[] literals;
+    private final int[] argIndexes;
+    private final int literalLength;
+
+    EmailTemplate(String subject, String body) {
+        this.subject = subject;
+
+        List<String> literalParts = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        int from = 0;
+        int open;
+        while ((open = body.indexOf('{', from)) >= 0) {
+            int close = body.indexOf('}', open);
+            literalParts.add(body.substring(from, open));
+            indexes.add(Integer.parseInt(body.substring(open + 1, close)));
+            from = close + 1;
+        }
+        literalParts.add(body.substring(from));
+
+        this.literals = literalParts.toArray(new String[0]);
+        this.argIndexes = indexes.stream().mapToInt(Integer::intValue).toArray();
+        this.literalLength = literalParts.stream().mapToInt(String::length).sum();
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String render(String... args) {
+        StringBuilder text = new StringBuilder(literalLength + 32);
+        for (int i = 0; i < argIndexes.length; i++) {
+            text.append(literals[i]).append(args[argIndexes[i]]);
+        }
+        return text.append(literals[literals.length - 1]).toString();
+    }
+}
@@ -0,0 +1,39 @@
+package com.secure.task.services;
+
+import java.time.Duration;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+
+import com.secure.task.util.JwtUtil;
+
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "auth.token-mode", havingValue = "jwt", matchIfMissing = true)
+public class JwtTokenService implements TokenService {
+
+    private final JwtUtil jwtUtil;
+
+    @Override
+    public String issueToken(UserDetails userDetails){
+        return jwtUtil.generateToken(userDetails);
+    }
+
+    @Override
+    public String resolveSubject(String token){
+        return jwtUtil.extractEmail(token);
+    }
+
+    // jwts are self contained, logging out only drops the cookie
+    @Override
+    public void revoke(String token){
+    }
+
+    @Override
+    public Duration getTimeToLive(){
+        return Duration.ofMillis(JwtUtil.EXPIRATION_MILLIS);
+    }
+}
@@ -2,6 +2,7 @@ package com.secure.task.services;
 
 import com.secure.task.io.ProfileRequest;
 import com.secure.task.io.ProfileResponse;
+import com.secure.task.io.ProfileVersion;
 
 public interface ProfileService {
     
@@ -9,6 +10,9 @@ public interface ProfileService {
 
         ProfileResponse getProfile(String email);
 
+        // current etag and last modified time of the profile, null if the user does not exist
+        ProfileVersion getProfileVersion(String email);
+
         void sendResetOTP(String email);
 
         void resetPassword(String email, String otp, String newPassword);
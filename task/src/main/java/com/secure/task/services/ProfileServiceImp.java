@@ -1,5 +1,6 @@
 package com.secure.task.services;
 
+import java.sql.Timestamp;
 import java.util.UUID;
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -12,6 +13,7 @@ import org.springframework.web.server.ResponseStatusException;
 import com.secure.task.entities.UserEntity;
 import com.secure.task.io.ProfileRequest;
 import com.secure.task.io.ProfileResponse;
+import com.secure.task.io.ProfileVersion;
 import com.secure.task.repositories.UserRepository;
 
 import lombok.RequiredArgsConstructor;
@@ -41,6 +43,23 @@ public class ProfileServiceImp implements ProfileService {
         return convertToProfileResponse(existingUser);
     }
 
+    @Override
+    public ProfileVersion getProfileVersion(String email){
+        return userRepository.findVersionByEmail(email)
+            .map(version -> new ProfileVersion(eTagOf(version.getUserId(), version.getUpdatedAt()), lastModifiedOf(version.getUpdatedAt())))
+            .orElse(null);
+    }
+
+    // strong etag, updatedAt moves on every save of the user row. read from the db every time, so every node agrees
+    static String eTagOf(String userId, Timestamp updatedAt) {
+        long version = updatedAt != null ? updatedAt.getTime() : 0L;
+        return "\"" + userId + "-" + Long.toHexString(version) + "\"";
+    }
+
+    static long lastModifiedOf(Timestamp updatedAt) {
+        return updatedAt != null ? updatedAt.getTime() : -1L;
+    }
+
     @Override
     public void sendResetOTP(String email){
         UserEntity existingEntity = userRepository.findByEmail(email)       //load the user
@@ -149,6 +168,8 @@ public class ProfileServiceImp implements ProfileService {
                 .email(newProfile.getEmail())
                 .userId(newProfile.getUserId())
                 .isAccountVerified(newProfile.isAccountVerified())
+                .eTag(eTagOf(newProfile.getUserId(), newProfile.getUpdatedAt()))
+                .lastModified(lastModifiedOf(newProfile.getUpdatedAt()))
                 .build();
     }
 
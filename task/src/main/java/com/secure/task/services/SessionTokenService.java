@@ -0,0 +1,99 @@
+package com.secure.task.services;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+
+import com.secure.task.util.SessionStore;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// opaque random session ids resolved against an in memory store, logout takes effect immediately.
+// sessions live on one node, so this mode needs sticky routing when running more than one instance
+@Service
+@ConditionalOnProperty(name = "auth.token-mode", havingValue = "session")
+public class SessionTokenService implements TokenService {
+
+    private static final int TOKEN_BYTES = 16;
+
+    private final SecureRandom random = new SecureRandom();
+    private final SessionStore sessionStore;
+    private final long ttlMillis;
+    private ScheduledExecutorService sweeper;
+
+    public SessionTokenService(@Value("${auth.session.ttl-ms:86400000}") long ttlMillis,
+                               @Value("${auth.session.initial-capacity:65536}") int initialCapacity,
+                               @Value("${auth.session.off-heap:false}") boolean offHeap) {
+        this.ttlMillis = ttlMillis;
+        this.sessionStore = new SessionStore(initialCapacity, offHeap);
+    }
+
+    @PostConstruct
+    public void startSweeper() {
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(() -> sessionStore.purgeExpired(System.currentTimeMillis()), 1, 1, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stopSweeper() {
+        sweeper.shutdownNow();
+    }
+
+    @Override
+    public String issueToken(UserDetails userDetails){
+        byte[] id = new byte[TOKEN_BYTES];
+        random.nextBytes(id);
+        ByteBuffer buffer = ByteBuffer.wrap(id);
+        sessionStore.put(buffer.getLong(), buffer.getLong(), userDetails.getUsername(), System.currentTimeMillis() + ttlMillis);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id);
+    }
+
+    @Override
+    public String resolveSubject(String token){
+        ByteBuffer id = decode(token);
+        return id == null ? null : sessionStore.get(id.getLong(), id.getLong(), System.currentTimeMillis());
+    }
+
+    @Override
+    public void revoke(String token){
+        ByteBuffer id = decode(token);
+        if(id != null){
+            sessionStore.remove(id.getLong(), id.getLong());
+        }
+    }
+
+    @Override
+    public Duration getTimeToLive(){
+        return Duration.ofMillis(ttlMillis);
+    }
+
+    public int getActiveSessions(){
+        return sessionStore.size();
+    }
+
+    private ByteBuffer decode(String token){
+        // 16 bytes encode to 22 characters, anything else (a jwt for example) is not one of ours
+        if(token == null || token.length() != 22){
+            return null;
+        }
+        try {
+            return ByteBuffer.wrap(Base64.getUrlDecoder().decode(token));
+        } catch(IllegalArgumentException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.secure.task.services;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+
+// keeps a bounded set of authenticated smtp connections open so sends skip the tls handshake and login
+@Component
+public class SmtpTransportPool {
+
+    private final JavaMailSenderImpl mailSender;
+    private final int maxConnections;
+    private final long idleTimeoutMillis;
+    private final int maxMessagesPerConnection;
+    private final long borrowTimeoutMillis;
+
+    // most recently used connection sits at the head, so the tail is what goes idle and gets evicted
+    private final LinkedBlockingDeque<PooledTransport> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+    private ScheduledExecutorService evictor;
+
+    public SmtpTransportPool(JavaMailSenderImpl mailSender,
+                             @Value("${mail.pool.max-connections:4}") int maxConnections,
+                             @Value("${mail.pool.idle-timeout-ms:60000}") long idleTimeoutMillis,
+                             @Value("${mail.pool.max-messages-per-connection:100}") int maxMessagesPerConnection,
+                             @Value("${mail.pool.borrow-timeout-ms:10000}") long borrowTimeoutMillis) {
+        this.mailSender = mailSender;
+        this.maxConnections = maxConnections;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.permits = new Semaphore(maxConnections, true);
+    }
+
+    @PostConstruct
+    public void startEvictor() {
+        evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "smtp-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, idleTimeoutMillis / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+        PooledTransport pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            pooled.close();
+        }
+    }
+
+    // sends every message over a single pooled connection
+    public void send(List<MimeMessage> messages) {
+        PooledTransport pooled = borrow();
+        boolean broken = false;
+        try {
+            for (MimeMessage message : messages) {
+                message.saveChanges();
+                pooled.transport.sendMessage(message, message.getAllRecipients());
+                pooled.messagesSent++;
+            }
+        } catch (MessagingException ex) {
+            broken = true;
+            throw new MailSendException("unable to send mail over pooled smtp connection", ex);
+        } finally {
+            release(pooled, broken);
+        }
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    private PooledTransport borrow() {
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new MailSendException("timed out waiting for a pooled smtp connection");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new MailSendException("interrupted waiting for a pooled smtp connection", ex);
+        }
+
+        try {
+            PooledTransport pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                // isConnected sends a NOOP, so this doubles as the health check for connections the relay dropped
+                if (!pooled.isExpired(idleTimeoutMillis) && pooled.transport.isConnected()) {
+                    return pooled;
+                }
+                pooled.close();
+            }
+            return connect();
+        } catch (RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    private void release(PooledTransport pooled, boolean broken) {
+        try {
+            if (broken || pooled.messagesSent >= maxMessagesPerConnection) {
+                pooled.close();
+            } else {
+                pooled.lastUsedAt = System.currentTimeMillis();
+                idle.offerFirst(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private PooledTransport connect() {
+        try {
+            Transport transport = mailSender.getSession().getTransport(mailSender.getProtocol());
+            transport.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+            return new PooledTransport(transport);
+        } catch (MessagingException ex) {
+            throw new MailSendException("unable to open smtp connection", ex);
+        }
+    }
+
+    void evictIdle() {
+        Iterator<PooledTransport> iterator = idle.descendingIterator();
+        while (iterator.hasNext()) {
+            PooledTransport pooled = iterator.next();
+            if (pooled.isExpired(idleTimeoutMillis) && idle.removeLastOccurrence(pooled)) {
+                pooled.close();
+            }
+        }
+    }
+
+    private static final class PooledTransport {
+        private final Transport transport;
+        private volatile long lastUsedAt = System.currentTimeMillis();
+        private int messagesSent;
+
+        private PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+
+        private boolean isExpired(long idleTimeoutMillis) {
+            return System.currentTimeMillis() - lastUsedAt > idleTimeoutMillis;
+        }
+
+        private void close() {
+            try {
+                transport.close();
+            } catch (MessagingException ignored) {
+                // the connection is being dropped anyway
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.secure.task.services;
+
+import java.time.Duration;
+
+import org.springframework.security.core.userdetails.UserDetails;
+
+// how login tokens are issued and checked, picked with auth.token-mode (jwt or session)
+public interface TokenService {
+
+        String issueToken(UserDetails userDetails);
+
+        // email the token was issued for, null if it is not valid (anymore)
+        String resolveSubject(String token);
+
+        void revoke(String token);
+
+        Duration getTimeToLive();
+}
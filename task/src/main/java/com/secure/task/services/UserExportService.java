@@ -0,0 +1,93 @@
+package com.secure.task.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.secure.task.entities.UserEntity;
+import com.secure.task.io.UserExportRow;
+import com.secure.task.repositories.UserRepository;
+import com.secure.task.sharding.ShardContext;
+import com.secure.task.sharding.ShardRouter;
+
+import jakarta.persistence.EntityManager;
+
+// streams users as ndjson one keyset page at a time, only a single page is ever held on the heap
+@Service
+public class UserExportService {
+
+    private static final byte[] NEWLINE = {'\n'};
+
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectProvider<ShardRouter> shardRouter;
+
+    @Value("${admin.export.page-size:500}")
+    private int pageSize;
+
+    public UserExportService(UserRepository userRepository, EntityManager entityManager, ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager, ObjectProvider<ShardRouter> shardRouter) {
+        this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.shardRouter = shardRouter;
+    }
+
+    public void export(Boolean verified, Timestamp createdFrom, Timestamp createdTo, OutputStream out) throws IOException {
+        ShardRouter router = shardRouter.getIfAvailable();
+        if (router == null) {
+            exportShard(verified, createdFrom, createdTo, out);
+            return;
+        }
+        // ids are per shard, so each shard is walked with its own cursor
+        for (String shard : router.getRing().getShards()) {
+            String previous = ShardContext.set(shard);
+            try {
+                exportShard(verified, createdFrom, createdTo, out);
+            } finally {
+                ShardContext.restore(previous);
+            }
+        }
+    }
+
+    private void exportShard(Boolean verified, Timestamp createdFrom, Timestamp createdTo, OutputStream out) throws IOException {
+        long afterId = 0;
+        while (true) {
+            final long cursor = afterId;
+            List<UserExportRow> page = readOnlyTransaction.execute(status -> {
+                List<UserEntity> users = userRepository.findPageAfter(cursor, verified, createdFrom, createdTo, Limit.of(pageSize));
+                List<UserExportRow> rows = users.stream().map(this::toRow).toList();
+                // drop the page from the persistence context before the next one is loaded
+                entityManager.clear();
+                return rows;
+            });
+            if (page == null || page.isEmpty()) {
+                return;
+            }
+            for (UserExportRow row : page) {
+                out.write(objectMapper.writeValueAsBytes(row));
+                out.write(NEWLINE);
+            }
+            out.flush();
+            afterId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    private UserExportRow toRow(UserEntity user) {
+        return new UserExportRow(user.getId(), user.getUserId(), user.getName(), user.getEmail(),
+                user.isAccountVerified(), user.getCreatedAt());
+    }
+}
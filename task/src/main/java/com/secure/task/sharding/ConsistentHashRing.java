@@ -0,0 +1,69 @@
+package com.secure.task.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// immutable ring, adding a shard only moves keys onto the new shard and never between the old ones
+public final class ConsistentHashRing {
+
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+    private final Set<String> shards;
+    private final int virtualNodes;
+
+    public ConsistentHashRing(Collection<String> shards, int virtualNodes) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("hash ring needs at least one shard");
+        }
+        this.shards = Collections.unmodifiableSet(new LinkedHashSet<>(shards));
+        this.virtualNodes = virtualNodes;
+        for (String shard : this.shards) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(shard + "#" + i), shard);
+            }
+        }
+    }
+
+    public ConsistentHashRing with(String shard) {
+        Set<String> grown = new LinkedHashSet<>(shards);
+        grown.add(shard);
+        return new ConsistentHashRing(grown, virtualNodes);
+    }
+
+    public Set<String> getShards() {
+        return shards;
+    }
+
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    public String ownerOf(String email) {
+        Map.Entry<Long, String> owner = ring.ceilingEntry(hash(normalize(email)));
+        return owner != null ? owner.getValue() : ring.firstEntry().getValue();
+    }
+
+    public static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // fnv-1a with a murmur3 finalizer, stable across jvms unlike String.hashCode mixing
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
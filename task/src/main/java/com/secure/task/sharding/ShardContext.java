@@ -0,0 +1,28 @@
+package com.secure.task.sharding;
+
+// the shard the current thread talks to, read by ShardRoutingDataSource when a connection is taken
+public final class ShardContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {}
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    // returns the previous shard so callers can put it back with restore
+    public static String set(String shard) {
+        String previous = CURRENT.get();
+        CURRENT.set(shard);
+        return previous;
+    }
+
+    public static void restore(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
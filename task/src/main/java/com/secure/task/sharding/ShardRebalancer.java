@@ -0,0 +1,264 @@
+package com.secure.task.sharding;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.secure.task.sharding.ShardTopologyStore.Topology;
+
+// moves the rows a joining shard takes over while the app keeps serving, reads fall back to the old owner until it is done.
+// the target ring is published through ShardTopologyStore first, so every node routes the same way during and after the move
+public class ShardRebalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    private static final int BATCH_SIZE = 500;
+    // second pass picks up rows written to an old owner while the first one was running
+    private static final int PASSES = 2;
+
+    private final ShardRouter router;
+    private final Map<String, DataSource> shardDataSources;
+    private final ShardTopologyStore topologyStore;
+    // how long every node needs to pick up a topology change, see ShardTopologyRefresher
+    private final long propagationDelayMillis;
+
+    private final AtomicLong movedRows = new AtomicLong();
+    private volatile String joiningShard;
+    private volatile String lastError;
+
+    public ShardRebalancer(ShardRouter router, Map<String, DataSource> shardDataSources,
+                           ShardTopologyStore topologyStore, long propagationDelayMillis) {
+        this.router = router;
+        this.shardDataSources = shardDataSources;
+        this.topologyStore = topologyStore;
+        this.propagationDelayMillis = propagationDelayMillis;
+    }
+
+    public synchronized void startPromotion(String shard) {
+        List<String> target = begin(shard);
+        Thread worker = new Thread(() -> run(shard, target), "shard-rebalancer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public void promote(String shard) {
+        List<String> target;
+        synchronized (this) {
+            target = begin(shard);
+        }
+        run(shard, target);
+    }
+
+    // publishes the target ring to every node, or picks up the one a failed promotion (on any node) left behind
+    private List<String> begin(String shard) {
+        if (!shardDataSources.containsKey(shard)) {
+            throw new IllegalArgumentException("unknown shard " + shard);
+        }
+        if (joiningShard != null) {
+            throw new IllegalStateException("shard " + joiningShard + " is already being promoted");
+        }
+        Topology topology = topologyStore.load();
+        router.apply(topology);
+        List<String> target;
+        if (topology.isMigrating()) {
+            // only the shard a failed rebalance was moving keys to can be promoted now
+            if (topology.activeShards().contains(shard) || !topology.targetShards().contains(shard)) {
+                throw new IllegalArgumentException("shard " + shard + " cannot be promoted now");
+            }
+            target = topology.targetShards();
+        } else {
+            if (topology.activeShards().contains(shard)) {
+                throw new IllegalArgumentException("shard " + shard + " is already active");
+            }
+            target = new ArrayList<>(topology.activeShards());
+            target.add(shard);
+            if (!topologyStore.compareAndSet(topology.version(), topology.activeShards(), target)) {
+                throw new IllegalStateException("the shard topology changed meanwhile, try again");
+            }
+            router.apply(topologyStore.load());
+        }
+        joiningShard = shard;
+        lastError = null;
+        movedRows.set(0);
+        return target;
+    }
+
+    private void run(String shard, List<String> target) {
+        ConsistentHashRing targetRing = new ConsistentHashRing(target, router.getRing().getVirtualNodes());
+        Set<String> sources = new LinkedHashSet<>(target);
+        sources.remove(shard);
+        try {
+            // nodes that havent seen the new ring yet would still put new users on the old owners
+            Thread.sleep(propagationDelayMillis);
+            for (int pass = 0; pass < PASSES; pass++) {
+                for (String source : sources) {
+                    moveRows(source, shard, targetRing);
+                }
+            }
+            complete(target);
+            log.info("shard {} promoted, {} rows moved", shard, movedRows.get());
+        } catch (RuntimeException | SQLException ex) {
+            // the topology stays migrating, reads still find unmoved rows and the promotion can be retried on any node
+            lastError = ex.getMessage();
+            log.error("rebalance onto shard {} failed after {} rows", shard, movedRows.get(), ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            lastError = "interrupted";
+        } finally {
+            joiningShard = null;
+        }
+    }
+
+    private void complete(List<String> target) {
+        Topology topology = topologyStore.load();
+        // a resumed run on another node may have finished first
+        if (topology.isMigrating() && topology.targetShards().equals(target)
+                && !topologyStore.compareAndSet(topology.version(), target, null)) {
+            throw new IllegalStateException("the shard topology changed while moving rows");
+        }
+        router.apply(topologyStore.load());
+    }
+
+    public long getMovedRows() {
+        return movedRows.get();
+    }
+
+    public String getJoiningShard() {
+        return joiningShard;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    // keyset scan over the source, only rows the new ring hands to the target are moved
+    private void moveRows(String source, String target, ConsistentHashRing ring) throws SQLException {
+        JdbcTemplate sourceJdbc = new JdbcTemplate(shardDataSources.get(source));
+        long lastId = 0;
+        while (true) {
+            List<Map<String, Object>> page = sourceJdbc.queryForList(
+                    "SELECT id, email FROM user_details WHERE id > ? ORDER BY id LIMIT " + BATCH_SIZE, lastId);
+            if (page.isEmpty()) {
+                return;
+            }
+            for (Map<String, Object> row : page) {
+                lastId = ((Number) row.get("id")).longValue();
+                if (target.equals(ring.ownerOf((String) row.get("email"))) && moveRow(source, target, lastId)) {
+                    movedRows.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    // the source row stays locked until it is copied and deleted. a save of an entity read from the old owner takes the
+    // same lock (ShardRoutingInterceptor), so it lands before the copy or fails once the row is gone, never in between
+    private boolean moveRow(String source, String target, long id) throws SQLException {
+        try (Connection connection = shardDataSources.get(source).getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                Map<String, Object> row = lockRow(connection, id);
+                if (row == null) {
+                    connection.rollback();
+                    return false;
+                }
+                JdbcTemplate targetJdbc = new JdbcTemplate(shardDataSources.get(target));
+                List<Map<String, Object>> existing = targetJdbc.queryForList(
+                        "SELECT id, updated_at FROM user_details WHERE email = ?", row.get("email"));
+                if (existing.isEmpty()) {
+                    insert(targetJdbc, row);
+                } else if (isNewer(row.get("updated_at"), existing.get(0).get("updated_at"))) {
+                    // both shards got a write for this user, the later one wins whichever shard it went to
+                    update(targetJdbc, ((Number) existing.get(0).get("id")).longValue(), row);
+                }
+                try (PreparedStatement delete = connection.prepareStatement("DELETE FROM user_details WHERE id = ?")) {
+                    delete.setLong(1, id);
+                    delete.executeUpdate();
+                }
+                connection.commit();
+                return true;
+            } catch (SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private Map<String, Object> lockRow(Connection connection, long id) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement("SELECT * FROM user_details WHERE id = ? FOR UPDATE")) {
+            select.setLong(1, id);
+            try (ResultSet rs = select.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                ResultSetMetaData meta = rs.getMetaData();
+                Map<String, Object> row = new LinkedHashMap<>();
+                for (int i = 1; i <= meta.getColumnCount(); i++) {
+                    row.put(meta.getColumnLabel(i).toLowerCase(Locale.ROOT), rs.getObject(i));
+                }
+                return row;
+            }
+        }
+    }
+
+    private static boolean isNewer(Object updatedAt, Object than) {
+        LocalDateTime time = toLocalDateTime(updatedAt);
+        LocalDateTime other = toLocalDateTime(than);
+        return time != null && (other == null || time.isAfter(other));
+    }
+
+    // drivers hand TIMESTAMP/DATETIME back as Timestamp or LocalDateTime
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return value instanceof LocalDateTime localDateTime ? localDateTime : null;
+    }
+
+    private void update(JdbcTemplate targetJdbc, long targetId, Map<String, Object> row) {
+        List<String> assignments = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        row.forEach((column, value) -> {
+            if (!"id".equals(column)) {
+                assignments.add(column + " = ?");
+                values.add(value);
+            }
+        });
+        values.add(targetId);
+        targetJdbc.update("UPDATE user_details SET " + String.join(", ", assignments) + " WHERE id = ?", values.toArray());
+    }
+
+    // ids are per shard, the target hands out its own
+    private void insert(JdbcTemplate targetJdbc, Map<String, Object> row) {
+        List<String> columns = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        row.forEach((column, value) -> {
+            if (!"id".equals(column)) {
+                columns.add(column);
+                values.add(value);
+            }
+        });
+        String placeholders = String.join(", ", columns.stream().map(column -> "?").toList());
+        targetJdbc.update("INSERT INTO user_details (" + String.join(", ", columns) + ") VALUES (" + placeholders + ")",
+                values.toArray());
+    }
+}
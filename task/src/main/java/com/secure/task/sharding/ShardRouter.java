@@ -0,0 +1,55 @@
+package com.secure.task.sharding;
+
+import com.secure.task.sharding.ShardTopologyStore.Topology;
+
+// routes emails with the ring from the shared topology, refreshed by ShardTopologyRefresher on every node
+public class ShardRouter {
+
+    private final int virtualNodes;
+    // one immutable snapshot, so a reader never sees the new ring with the old fallback or the other way round
+    private volatile State state;
+
+    public ShardRouter(ConsistentHashRing ring) {
+        this.virtualNodes = ring.getVirtualNodes();
+        this.state = new State(0, ring, null);
+    }
+
+    public String shardFor(String email) {
+        return state.ring.ownerOf(email);
+    }
+
+    // the old owner of a key during a rebalance, null when there is nothing to fall back to
+    public String previousShardFor(String email) {
+        State current = state;
+        if (current.previousRing == null) {
+            return null;
+        }
+        String owner = current.previousRing.ownerOf(email);
+        return owner.equals(current.ring.ownerOf(email)) ? null : owner;
+    }
+
+    public ConsistentHashRing getRing() {
+        return state.ring;
+    }
+
+    public boolean isMigrating() {
+        return state.previousRing != null;
+    }
+
+    public long getVersion() {
+        return state.version;
+    }
+
+    // while migrating, keys are routed with the target ring and fall back to the active one until they are moved
+    public synchronized void apply(Topology topology) {
+        if (topology.version() <= state.version) {
+            return;
+        }
+        ConsistentHashRing active = new ConsistentHashRing(topology.activeShards(), virtualNodes);
+        state = topology.isMigrating()
+                ? new State(topology.version(), new ConsistentHashRing(topology.targetShards(), virtualNodes), active)
+                : new State(topology.version(), active, null);
+    }
+
+    private record State(long version, ConsistentHashRing ring, ConsistentHashRing previousRing) {}
+}
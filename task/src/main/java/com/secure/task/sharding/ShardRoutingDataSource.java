@@ -0,0 +1,30 @@
+package com.secure.task.sharding;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final Map<String, DataSource> shardDataSources;
+
+    public ShardRoutingDataSource(Map<String, DataSource> shardDataSources, String defaultShard) {
+        this.shardDataSources = Map.copyOf(shardDataSources);
+        setTargetDataSources(new HashMap<>(shardDataSources));
+        setDefaultTargetDataSource(shardDataSources.get(defaultShard));
+        // an unknown shard name is a bug, dont quietly send it to the default shard
+        setLenientFallback(false);
+    }
+
+    public Map<String, DataSource> getShardDataSources() {
+        return shardDataSources;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+}
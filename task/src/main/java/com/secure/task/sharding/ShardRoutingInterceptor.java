@@ -0,0 +1,123 @@
+package com.secure.task.sharding;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.secure.task.entities.UserEntity;
+
+// sits in front of the UserRepository proxy (outside its transaction) and pins each call to the shard owning the email,
+// calls without an email (findById, findAll ...) run on whatever ShardContext the caller set, or the default shard.
+// every attempt runs on its own clone of the invocation, taken before anything proceeded, so the retry on the old
+// owner still goes through the transaction and query interceptors behind this one
+public class ShardRoutingInterceptor implements MethodInterceptor {
+
+    private final ShardRouter router;
+    private final Supplier<PlatformTransactionManager> transactionManager;
+    // the routing datasource, so the row lock below shares the connection of the save's transaction
+    private final Supplier<DataSource> dataSource;
+
+    public ShardRoutingInterceptor(ShardRouter router, Supplier<PlatformTransactionManager> transactionManager,
+                                   Supplier<DataSource> dataSource) {
+        this.router = router;
+        this.transactionManager = transactionManager;
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object[] args = invocation.getArguments();
+        if (args.length != 1) {
+            return invocation.proceed();
+        }
+
+        if (args[0] instanceof UserEntity user) {
+            String owner = router.shardFor(user.getEmail());
+            // an entity goes back to the shard it was read from, so a save during a rebalance
+            // never merges into a row with the same id on another shard
+            String shard = user.getShard() != null ? user.getShard() : owner;
+            Object saved = user.getId() != null && !shard.equals(owner)
+                    ? saveOnFormerOwner(shard, user, invocation)
+                    : proceedOn(shard, invocation);
+            tag(saved, shard);
+            return saved;
+        }
+
+        if (args[0] instanceof String email && invocation.getMethod().getName().endsWith("ByEmail")) {
+            String shard = router.shardFor(email);
+            String previous = router.previousShardFor(email);
+            MethodInvocation fallback = previous != null ? clone(invocation) : null;
+            Object result = proceedOn(shard, clone(invocation));
+            if (isMiss(result) && fallback != null) {
+                shard = previous;
+                result = proceedOn(previous, fallback);
+            }
+            tag(result, shard);
+            return result;
+        }
+
+        return invocation.proceed();
+    }
+
+    // the entity was read from a shard that no longer owns its email, the rebalancer may be moving (or have moved) the
+    // row. the save holds the same row lock as the mover: it lands before the copy is taken, or fails once the row is
+    // gone instead of letting merge insert it again on the old shard where nothing would ever find it
+    private Object saveOnFormerOwner(String shard, UserEntity user, MethodInvocation invocation) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager.get());
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource.get());
+        String previous = ShardContext.set(shard);
+        try {
+            return transaction.execute(status -> {
+                List<Long> rows = jdbc.queryForList("SELECT id FROM user_details WHERE id = ? FOR UPDATE", Long.class, user.getId());
+                if (rows.isEmpty()) {
+                    throw new OptimisticLockingFailureException("user " + user.getEmail() + " was moved to another shard, reload it and retry");
+                }
+                try {
+                    return invocation.proceed();
+                } catch (RuntimeException | Error ex) {
+                    throw ex;
+                } catch (Throwable ex) {
+                    throw new IllegalStateException(ex);
+                }
+            });
+        } finally {
+            ShardContext.restore(previous);
+        }
+    }
+
+    private Object proceedOn(String shard, MethodInvocation invocation) throws Throwable {
+        String previous = ShardContext.set(shard);
+        try {
+            return invocation.proceed();
+        } finally {
+            ShardContext.restore(previous);
+        }
+    }
+
+    private static MethodInvocation clone(MethodInvocation invocation) {
+        return ((ProxyMethodInvocation) invocation).invocableClone();
+    }
+
+    private boolean isMiss(Object result) {
+        return Boolean.FALSE.equals(result) || (result instanceof Optional<?> optional && optional.isEmpty());
+    }
+
+    private void tag(Object result, String shard) {
+        if (result instanceof Optional<?> optional) {
+            result = optional.orElse(null);
+        }
+        if (result instanceof UserEntity user) {
+            user.setShard(shard);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.secure.task.sharding;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.secure.task.sharding.ShardTopologyStore.Topology;
+
+// polls the shared topology so a promotion started on any node reaches this one within one interval
+public class ShardTopologyRefresher implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardTopologyRefresher.class);
+
+    private final ShardRouter router;
+    private final ShardTopologyStore store;
+    private final ScheduledExecutorService scheduler;
+
+    public ShardTopologyRefresher(ShardRouter router, ShardTopologyStore store, long intervalMillis) {
+        this.router = router;
+        this.store = store;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shard-topology-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::refresh, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void refresh() {
+        try {
+            Topology topology = store.load();
+            long before = router.getVersion();
+            if (topology != null && topology.version() > before) {
+                router.apply(topology);
+                log.info("shard topology {} -> {}: active {}, target {}", before, topology.version(),
+                        topology.activeShards(), topology.targetShards());
+            }
+        } catch (RuntimeException ex) {
+            // keep routing with what we have, the next round tries again
+            log.warn("could not refresh the shard topology", ex);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,71 @@
+package com.secure.task.sharding;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// the ring every node routes with, kept in one row on the coordinator shard (the first configured one) so a
+// promotion started on one node reaches all of them and survives restarts. version goes up on every change
+public class ShardTopologyStore {
+
+    private static final int ROW_ID = 1;
+
+    private final JdbcTemplate jdbc;
+
+    public ShardTopologyStore(DataSource coordinator) {
+        this.jdbc = new JdbcTemplate(coordinator);
+    }
+
+    public void createTableIfMissing() {
+        jdbc.execute("CREATE TABLE IF NOT EXISTS shard_topology ("
+                + "id INT PRIMARY KEY, "
+                + "version BIGINT NOT NULL, "
+                + "active_shards VARCHAR(2048) NOT NULL, "
+                + "target_shards VARCHAR(2048))");
+    }
+
+    // null when no node has written a topology yet
+    public Topology load() {
+        List<Topology> rows = jdbc.query(
+                "SELECT version, active_shards, target_shards FROM shard_topology WHERE id = ?",
+                (rs, rowNum) -> new Topology(rs.getLong(1), split(rs.getString(2)), split(rs.getString(3))),
+                ROW_ID);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    // the first node to start writes the configured ring, everyone else gets what is already stored
+    public Topology initialize(List<String> activeShards) {
+        try {
+            jdbc.update("INSERT INTO shard_topology (id, version, active_shards, target_shards) VALUES (?, 1, ?, NULL)",
+                    ROW_ID, String.join(",", activeShards));
+        } catch (DuplicateKeyException ex) {
+            // another node got there first
+        }
+        return load();
+    }
+
+    // false when another node changed the topology since expectedVersion was read
+    public boolean compareAndSet(long expectedVersion, List<String> activeShards, List<String> targetShards) {
+        return jdbc.update("UPDATE shard_topology SET version = version + 1, active_shards = ?, target_shards = ? "
+                        + "WHERE id = ? AND version = ?",
+                String.join(",", activeShards),
+                targetShards != null ? String.join(",", targetShards) : null,
+                ROW_ID, expectedVersion) == 1;
+    }
+
+    private static List<String> split(String shards) {
+        return shards == null || shards.isEmpty() ? null : Arrays.asList(shards.split(","));
+    }
+
+    // targetShards is set while a rebalance is moving keys from the active ring onto it
+    public record Topology(long version, List<String> activeShards, List<String> targetShards) {
+
+        public boolean isMigrating() {
+            return targetShards != null;
+        }
+    }
+}
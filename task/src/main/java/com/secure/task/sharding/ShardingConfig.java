@@ -0,0 +1,159 @@
+package com.secure.task.sharding;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.secure.task.repositories.UserRepository;
+import com.secure.task.sharding.ShardTopologyStore.Topology;
+import com.zaxxer.hikari.HikariDataSource;
+
+// replaces the single auto-configured datasource with one routing over all shards when sharding.enabled=true,
+// every shard needs the user_details table since ddl-auto only runs against the default (first) shard
+@Configuration
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    @Bean
+    @Primary
+    public ShardRoutingDataSource dataSource(ShardingProperties properties) {
+        Map<String, DataSource> shards = new LinkedHashMap<>();
+        for (ShardingProperties.Shard shard : properties.getShards()) {
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(shard.getUrl())
+                    .username(shard.getUsername())
+                    .password(shard.getPassword())
+                    .build();
+            dataSource.setPoolName("shard-" + shard.getName());
+            dataSource.setMaximumPoolSize(properties.getMaximumPoolSize());
+            dataSource.setMinimumIdle(properties.getMinimumIdle());
+            shards.put(shard.getName(), dataSource);
+        }
+        return new ShardRoutingDataSource(shards, coordinatorShard(properties));
+    }
+
+    @Bean
+    public ShardTopologyStore shardTopologyStore(ShardingProperties properties, ShardRoutingDataSource dataSource) {
+        ShardTopologyStore store = new ShardTopologyStore(dataSource.getShardDataSources().get(coordinatorShard(properties)));
+        store.createTableIfMissing();
+        return store;
+    }
+
+    // the stored topology wins over the joining flags, those only seed it on the very first start
+    @Bean
+    public ShardRouter shardRouter(ShardingProperties properties, ShardRoutingDataSource dataSource, ShardTopologyStore store) {
+        List<String> configuredActive = properties.getShards().stream()
+                .filter(shard -> !shard.isJoining())
+                .map(ShardingProperties.Shard::getName)
+                .toList();
+        Topology topology = store.load();
+        if (topology == null) {
+            topology = store.initialize(configuredActive);
+        }
+        verify(topology, dataSource.getShardDataSources());
+
+        ShardRouter router = new ShardRouter(new ConsistentHashRing(topology.activeShards(), properties.getVirtualNodes()));
+        router.apply(topology);
+        return router;
+    }
+
+    @Bean
+    public ShardTopologyRefresher shardTopologyRefresher(ShardRouter shardRouter, ShardTopologyStore store, ShardingProperties properties) {
+        return new ShardTopologyRefresher(shardRouter, store, properties.getTopologyRefreshMillis());
+    }
+
+    @Bean
+    public ShardRebalancer shardRebalancer(ShardRouter shardRouter, ShardRoutingDataSource dataSource,
+                                           ShardTopologyStore store, ShardingProperties properties) {
+        // two refresh rounds, so every node is routing with the target ring before the first row moves
+        return new ShardRebalancer(shardRouter, dataSource.getShardDataSources(), store, 2 * properties.getTopologyRefreshMillis());
+    }
+
+    @Bean
+    public ShardsEndpoint shardsEndpoint(ShardRouter shardRouter, ShardRebalancer shardRebalancer) {
+        return new ShardsEndpoint(shardRouter, shardRebalancer);
+    }
+
+    // puts ShardRoutingInterceptor in front of the UserRepository proxy, ahead of its transaction interceptor
+    // so the shard is chosen before a connection is taken
+    @Bean
+    public static BeanPostProcessor shardRoutingRepositoryPostProcessor(ObjectProvider<ShardRouter> shardRouter,
+                                                                        ObjectProvider<PlatformTransactionManager> transactionManager,
+                                                                        ObjectProvider<DataSource> dataSource) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) -> {
+                        if (UserRepository.class.equals(repositoryInformation.getRepositoryInterface())) {
+                            proxyFactory.addAdvice(0, new ShardRoutingInterceptor(shardRouter.getObject(),
+                                    transactionManager::getObject, dataSource::getObject));
+                        }
+                    }));
+                }
+                return bean;
+            }
+        };
+    }
+
+    // the first configured shard holds shard_topology, it has to stay first and can never be a joining one
+    private static String coordinatorShard(ShardingProperties properties) {
+        if (properties.getShards().isEmpty()) {
+            throw new IllegalStateException("sharding.enabled=true needs at least one shard");
+        }
+        ShardingProperties.Shard first = properties.getShards().get(0);
+        if (first.isJoining()) {
+            throw new IllegalStateException("the first shard (" + first.getName() + ") holds the topology and cannot be joining");
+        }
+        return first.getName();
+    }
+
+    // refuses to start rather than route around rows: every stored shard has to be configured, and a configured shard
+    // outside the stored rings has to be empty (a promotion that was never recorded, or a config that was edited by hand)
+    private static void verify(Topology topology, Map<String, DataSource> shards) {
+        Set<String> known = new LinkedHashSet<>(topology.activeShards());
+        if (topology.isMigrating()) {
+            known.addAll(topology.targetShards());
+        }
+        for (String shard : known) {
+            if (!shards.containsKey(shard)) {
+                throw new IllegalStateException("shard " + shard + " is in the stored topology but not configured");
+            }
+        }
+        for (Map.Entry<String, DataSource> shard : shards.entrySet()) {
+            if (!known.contains(shard.getKey()) && countUsers(shard.getValue()) > 0) {
+                throw new IllegalStateException("shard " + shard.getKey() + " holds users but is not in the stored topology "
+                        + topology.activeShards() + ", promote it instead of listing it as active");
+            }
+        }
+    }
+
+    private static long countUsers(DataSource dataSource) {
+        try {
+            Long count = new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM user_details", Long.class);
+            return count != null ? count : 0;
+        } catch (BadSqlGrammarException ex) {
+            // a fresh joining shard may not even have the table yet
+            return 0;
+        }
+    }
+}
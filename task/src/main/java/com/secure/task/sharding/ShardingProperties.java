@@ -0,0 +1,33 @@
+package com.secure.task.sharding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "sharding")
+public class ShardingProperties {
+
+    private boolean enabled;
+    // points per shard on the hash ring, more points = more even spread
+    private int virtualNodes = 128;
+    private int maximumPoolSize = 10;
+    private int minimumIdle = 2;
+    // how often every node re-reads the shared shard topology
+    private long topologyRefreshMillis = 2000;
+    private List<Shard> shards = new ArrayList<>();
+
+    @Data
+    public static class Shard {
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+        // joining shards get a datasource but no keys until promoted through the rebalancer. only read on the
+        // first start, after that the ring stored in shard_topology on the first shard is what counts
+        private boolean joining;
+    }
+}
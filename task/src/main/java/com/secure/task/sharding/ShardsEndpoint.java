@@ -0,0 +1,42 @@
+package com.secure.task.sharding;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+// not exposed unless listed in management.endpoints.*.exposure.include
+@Endpoint(id = "shards")
+public class ShardsEndpoint {
+
+    private final ShardRouter router;
+    private final ShardRebalancer rebalancer;
+
+    public ShardsEndpoint(ShardRouter router, ShardRebalancer rebalancer) {
+        this.router = router;
+        this.rebalancer = rebalancer;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("shards", router.getRing().getShards());
+        status.put("topologyVersion", router.getVersion());
+        status.put("migrating", router.isMigrating());
+        status.put("joiningShard", rebalancer.getJoiningShard());
+        status.put("movedRows", rebalancer.getMovedRows());
+        status.put("lastError", rebalancer.getLastError());
+        return status;
+    }
+
+    // starts moving keys onto a configured joining shard. the new ring is stored in shard_topology and every node
+    // picks it up from there, the joining flag in the config does not need to be touched afterwards
+    @WriteOperation
+    public Map<String, Object> promote(@Selector String shard) {
+        rebalancer.startPromotion(shard);
+        return status();
+    }
+}
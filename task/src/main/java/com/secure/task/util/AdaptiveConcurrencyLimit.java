@@ -0,0 +1,93 @@
+package com.secure.task.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+// gradient style concurrency limit: compares each request's latency with the no-load latency (vegas style,
+// the lowest seen over the last one to two baseline windows) and shrinks the limit as soon as latency climbs past the tolerance, growing it
+// by roughly sqrt(limit) while latency stays near the baseline. queueing shows up in latency long before timeouts do, so requests
+// beyond what the backend can take are turned away instead of waiting in tomcat's queue
+public class AdaptiveConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    // a backend that got slower for good becomes the new baseline after one to two windows. measured in time, not
+    // samples, so a sustained slowdown keeps being shed for that long however many requests come in meanwhile
+    private final long baselineWindowNanos;
+    private final LongSupplier nanoClock;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+    // guarded by this: the lowest rtt of the current and of the previous window, 0 when there was none
+    private long windowStart;
+    private long currentMinRtt;
+    private long previousMinRtt;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing,
+                                    long baselineWindowNanos, LongSupplier nanoClock) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("limits must satisfy 1 <= min <= initial <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.baselineWindowNanos = baselineWindowNanos;
+        this.nanoClock = nanoClock;
+        this.limit = initialLimit;
+        this.windowStart = nanoClock.getAsLong();
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // the request finished and its latency says something about the backend
+    public void release(long rttNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        update(Math.max(1, rttNanos), inFlightBefore);
+    }
+
+    // the request finished but its latency is meaningless, eg;- it went async
+    public void releaseWithoutSample() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void update(long rtt, int inFlightBefore) {
+        long now = nanoClock.getAsLong();
+        if (now - windowStart >= baselineWindowNanos) {
+            // a whole window without samples leaves nothing worth remembering
+            previousMinRtt = now - windowStart < 2 * baselineWindowNanos ? currentMinRtt : 0;
+            currentMinRtt = 0;
+            windowStart = now;
+        }
+        currentMinRtt = currentMinRtt == 0 ? rtt : Math.min(currentMinRtt, rtt);
+        long baselineRtt = previousMinRtt == 0 ? currentMinRtt : Math.min(previousMinRtt, currentMinRtt);
+        // nowhere near the limit, so this sample says nothing about whether it is too high or too low
+        if (inFlightBefore < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * baselineRtt / (double) rtt));
+        double target = limit * gradient + Math.sqrt(limit);
+        double next = limit * (1 - smoothing) + target * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+}
@@ -0,0 +1,58 @@
+package com.secure.task.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+public class BCryptCostCalibrator {
+
+    private static final Logger log = LoggerFactory.getLogger(BCryptCostCalibrator.class);
+
+    private static final String PROBE_PASSWORD = "calibration-probe-password";
+    // each cost is measured a few times and the fastest run is kept, so a gc pause doesnt skew the pick
+    private static final int SAMPLES_PER_COST = 3;
+
+    private final long targetMillis;
+    private final int minStrength;
+    private final int maxStrength;
+
+    public BCryptCostCalibrator(long targetMillis, int minStrength, int maxStrength) {
+        if (minStrength < 4 || maxStrength > 31 || minStrength > maxStrength) {
+            throw new IllegalArgumentException("bcrypt strength range must be within 4..31, got " + minStrength + ".." + maxStrength);
+        }
+        this.targetMillis = targetMillis;
+        this.minStrength = minStrength;
+        this.maxStrength = maxStrength;
+    }
+
+    // picks the highest cost whose hash time stays within the target latency on this machine
+    public int calibrate() {
+        // warm the jit on the cheapest cost first, otherwise the first measurement is way off
+        measureMillis(minStrength);
+
+        int chosen = minStrength;
+        long chosenMillis = measureMillis(minStrength);
+        for (int strength = minStrength + 1; strength <= maxStrength; strength++) {
+            long millis = measureMillis(strength);
+            if (millis > targetMillis) {
+                break;
+            }
+            chosen = strength;
+            chosenMillis = millis;
+        }
+
+        log.info("bcrypt cost calibrated to {} (~{} ms per hash, target {} ms, range {}..{})",
+                chosen, chosenMillis, targetMillis, minStrength, maxStrength);
+        return chosen;
+    }
+
+    private long measureMillis(int strength) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES_PER_COST; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw(PROBE_PASSWORD, BCrypt.gensalt(strength));
+            best = Math.min(best, (System.nanoTime() - start) / 1_000_000);
+        }
+        return best;
+    }
+}
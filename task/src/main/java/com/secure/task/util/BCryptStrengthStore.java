@@ -0,0 +1,53 @@
+package com.secure.task.util;
+
+import java.util.List;
+import java.util.function.IntSupplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// the bcrypt cost the whole fleet hashes with, one row written by the first node that calibrates.
+// every node reads it back, so they all agree on the cost logins upgrade old hashes to
+public class BCryptStrengthStore {
+
+    private static final int ROW_ID = 1;
+
+    private final JdbcTemplate jdbc;
+
+    public BCryptStrengthStore(DataSource dataSource) {
+        this.jdbc = new JdbcTemplate(dataSource);
+    }
+
+    public void createTableIfMissing() {
+        jdbc.execute("CREATE TABLE IF NOT EXISTS bcrypt_strength ("
+                + "id INT PRIMARY KEY, "
+                + "strength INT NOT NULL)");
+    }
+
+    // the stored cost, calibrating and storing one first when no node has yet. never below minStrength,
+    // raising the floor in the config raises the stored cost for everyone
+    public int loadOrCalibrate(IntSupplier calibrate, int minStrength) {
+        Integer stored = load();
+        if (stored == null) {
+            try {
+                jdbc.update("INSERT INTO bcrypt_strength (id, strength) VALUES (?, ?)", ROW_ID, calibrate.getAsInt());
+            } catch (DuplicateKeyException ex) {
+                // another node calibrated at the same time, its cost wins
+            }
+            stored = load();
+        }
+        if (stored < minStrength) {
+            jdbc.update("UPDATE bcrypt_strength SET strength = ? WHERE id = ? AND strength < ?", minStrength, ROW_ID, minStrength);
+            stored = load();
+        }
+        return stored;
+    }
+
+    // null when no node has stored a cost yet
+    public Integer load() {
+        List<Integer> rows = jdbc.queryForList("SELECT strength FROM bcrypt_strength WHERE id = ?", Integer.class, ROW_ID);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+}
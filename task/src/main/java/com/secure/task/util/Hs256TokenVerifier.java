@@ -0,0 +1,199 @@
+package com.secure.task.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+// verifies the tokens JwtUtil issues ({"alg":"HS256"} header, sub/iat/exp payload) straight from the token bytes:
+// one hmac with a per thread Mac and a scan of the payload for sub and exp, no Strings per segment, no Jackson, no Claims.
+// anything that doesnt look exactly like our own valid, unexpired token returns null and goes through jjwt instead
+public class Hs256TokenVerifier {
+
+    private static final Base64.Decoder BASE64_URL = Base64.getUrlDecoder();
+
+    private final byte[] expectedHeader;
+    private final ThreadLocal<Mac> mac;
+
+    public Hs256TokenVerifier(byte[] secretKey, String expectedHeaderSegment) {
+        SecretKeySpec key = new SecretKeySpec(secretKey, "HmacSHA256");
+        this.expectedHeader = expectedHeaderSegment.getBytes(StandardCharsets.US_ASCII);
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance("HmacSHA256");
+                instance.init(key);
+                return instance;
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException("HmacSHA256 is not available", ex);
+            }
+        });
+    }
+
+    public VerifiedToken verify(String token) {
+        if (token == null) {
+            return null;
+        }
+        byte[] bytes = token.getBytes(StandardCharsets.ISO_8859_1);
+        int headerEnd = expectedHeader.length;
+        if (bytes.length <= headerEnd || bytes[headerEnd] != '.'
+                || !Arrays.equals(bytes, 0, headerEnd, expectedHeader, 0, headerEnd)) {
+            return null;
+        }
+        int payloadEnd = indexOf(bytes, (byte) '.', headerEnd + 1);
+        // jjwt never pads, a padded segment is left to it as well
+        if (payloadEnd < 0 || indexOf(bytes, (byte) '.', payloadEnd + 1) >= 0 || indexOf(bytes, (byte) '=', headerEnd) >= 0) {
+            return null;
+        }
+
+        try {
+            ByteBuffer signature = BASE64_URL.decode(ByteBuffer.wrap(bytes, payloadEnd + 1, bytes.length - payloadEnd - 1));
+            Mac hmac = mac.get();
+            hmac.update(bytes, 0, payloadEnd);
+            if (!MessageDigest.isEqual(hmac.doFinal(), Arrays.copyOf(signature.array(), signature.limit()))) {
+                return null;
+            }
+            ByteBuffer payload = BASE64_URL.decode(ByteBuffer.wrap(bytes, headerEnd + 1, payloadEnd - headerEnd - 1));
+            VerifiedToken verified = new PayloadScanner(payload.array(), payload.limit()).scan();
+            // jjwt rejects once now is past exp, leave the boundary itself to jjwt as well
+            if (verified == null || verified.expiresAtMillis() <= System.currentTimeMillis()) {
+                return null;
+            }
+            return verified;
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private static int indexOf(byte[] bytes, byte value, int from) {
+        for (int i = from; i < bytes.length; i++) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public record VerifiedToken(String subject, long expiresAtMillis) {}
+
+    // accepts only a flat object of the keys we issue: "sub" string, "iat" and "exp" integers, plain ascii, no escapes
+    private static final class PayloadScanner {
+        private final byte[] json;
+        private final int length;
+        private int pos;
+
+        private PayloadScanner(byte[] json, int length) {
+            this.json = json;
+            this.length = length;
+        }
+
+        private VerifiedToken scan() {
+            String subject = null;
+            long exp = -1;
+            boolean seenIat = false;
+
+            skipWhitespace();
+            if (!consume('{')) {
+                return null;
+            }
+            skipWhitespace();
+            if (!consume('}')) {
+                do {
+                    skipWhitespace();
+                    String key = readString();
+                    skipWhitespace();
+                    if (key == null || !consume(':')) {
+                        return null;
+                    }
+                    skipWhitespace();
+                    switch (key) {
+                        case "sub" -> {
+                            if (subject != null || (subject = readString()) == null) {
+                                return null;
+                            }
+                        }
+                        case "exp" -> {
+                            if (exp >= 0 || (exp = readLong()) < 0) {
+                                return null;
+                            }
+                        }
+                        case "iat" -> {
+                            if (seenIat || readLong() < 0) {
+                                return null;
+                            }
+                            seenIat = true;
+                        }
+                        default -> {
+                            return null;
+                        }
+                    }
+                    skipWhitespace();
+                } while (consume(','));
+                if (!consume('}')) {
+                    return null;
+                }
+            }
+            skipWhitespace();
+            if (pos != length || subject == null || exp < 0 || exp > Long.MAX_VALUE / 1000) {
+                return null;
+            }
+            return new VerifiedToken(subject, exp * 1000);
+        }
+
+        private String readString() {
+            if (!consume('"')) {
+                return null;
+            }
+            int start = pos;
+            while (pos < length) {
+                byte b = json[pos];
+                if (b == '"') {
+                    return new String(json, start, pos++ - start, StandardCharsets.US_ASCII);
+                }
+                // escapes, control characters and non ascii are left to the full parser
+                if (b == '\\' || b < 0x20) {
+                    return null;
+                }
+                pos++;
+            }
+            return null;
+        }
+
+        // non negative integers only, -1 for anything else (jackson also refuses leading zeros)
+        private long readLong() {
+            int start = pos;
+            if (pos + 1 < length && json[pos] == '0' && json[pos + 1] >= '0' && json[pos + 1] <= '9') {
+                return -1;
+            }
+            long value = 0;
+            while (pos < length && json[pos] >= '0' && json[pos] <= '9') {
+                if (pos - start >= 18) {
+                    return -1;
+                }
+                value = value * 10 + (json[pos++] - '0');
+            }
+            if (pos == start || (pos < length && (json[pos] == '.' || json[pos] == 'e' || json[pos] == 'E'))) {
+                return -1;
+            }
+            return value;
+        }
+
+        private boolean consume(char expected) {
+            if (pos < length && json[pos] == expected) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void skipWhitespace() {
+            while (pos < length && (json[pos] == ' ' || json[pos] == '\t' || json[pos] == '\n' || json[pos] == '\r')) {
+                pos++;
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.secure.task.util;
+
+import java.security.MessageDigest;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// bounded ttl store of idempotency keys, each key is either still in flight or holds the finished response
+@Component
+public class IdempotencyStore {
+
+    @Value("${idempotency.ttl-ms:3600000}")
+    private long ttlMillis;
+
+    @Value("${idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    // insertion ordered, so the eldest entry is the first one to go once the store is full
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    // returns null when the caller now owns the key and has to run the request,
+    // otherwise the result of the request that got there first (completes with null if that one failed).
+    // the fingerprint is a hash of the request body, a key reused with a different one throws KeyReusedException
+    public synchronized CompletableFuture<StoredResponse> begin(String key, byte[] fingerprint) {
+        long now = System.currentTimeMillis();
+        Entry existing = entries.get(key);
+        if (existing != null && !existing.isExpired(now)) {
+            if (!MessageDigest.isEqual(existing.fingerprint, fingerprint)) {
+                throw new KeyReusedException();
+            }
+            return existing.result;
+        }
+        if (existing != null) {
+            entries.remove(key);
+        }
+        evictIfFull(now);
+        entries.put(key, new Entry(fingerprint));
+        return null;
+    }
+
+    public synchronized void complete(String key, StoredResponse response) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.expiresAt = System.currentTimeMillis() + ttlMillis;
+            entry.result.complete(response);
+        }
+    }
+
+    // the owner failed, forget the key so a retry runs again and let anyone waiting run on their own
+    public synchronized void abandon(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            entry.result.complete(null);
+        }
+    }
+
+    private void evictIfFull(long now) {
+        if (entries.size() < maxEntries) {
+            return;
+        }
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue().isExpired(now)) {
+                iterator.remove();
+            }
+        }
+        // still full, drop the oldest keys, in flight ones included since their waiters keep the future
+        iterator = entries.entrySet().iterator();
+        while (entries.size() >= maxEntries && iterator.hasNext()) {
+            Entry eldest = iterator.next().getValue();
+            iterator.remove();
+            eldest.result.complete(null);
+        }
+    }
+
+    public record StoredResponse(int status, String contentType, byte[] body) {}
+
+    public static final class KeyReusedException extends RuntimeException {
+        private KeyReusedException() {
+            super("idempotency key was already used with a different request body");
+        }
+    }
+
+    private static final class Entry {
+        private final byte[] fingerprint;
+        private final CompletableFuture<StoredResponse> result = new CompletableFuture<>();
+        // in flight entries never expire, they are removed by complete or abandon
+        private long expiresAt = Long.MAX_VALUE;
+
+        private Entry(byte[] fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        private boolean isExpired(long now) {
+            return expiresAt < now;
+        }
+    }
+}
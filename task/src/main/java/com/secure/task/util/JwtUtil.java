@@ -12,12 +12,31 @@ import org.springframework.stereotype.Component;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import jakarta.annotation.PostConstruct;
 
 @Component
 public class JwtUtil {
+
+    // 24 hours
+    public static final long EXPIRATION_MILLIS = 1000L * 60 * 60 * 24;
     
     @Value("${jwt.secret-key}")
     private String SECRET_KEY;
+
+    // fast path for our own tokens, null when the secret cant be used for it (jjwt then does all the work)
+    private Hs256TokenVerifier fastVerifier;
+
+    @PostConstruct
+    public void initFastVerifier(){
+        try {
+            // same base64 decoding jjwt applies to the string secret, and the header segment it writes
+            String probe = createToken(new HashMap<>(), "probe");
+            fastVerifier = new Hs256TokenVerifier(Decoders.BASE64.decode(SECRET_KEY), probe.substring(0, probe.indexOf('.')));
+        } catch(RuntimeException ex) {
+            fastVerifier = null;
+        }
+    }
     
     // this takes userDetails simply for its email 
     public String generateToken(UserDetails userDetails){
@@ -32,7 +51,7 @@ public class JwtUtil {
                 .setClaims(claims)          // set claims
                 .setSubject(username)       // for username
                 .setIssuedAt(new Date(System.currentTimeMillis()))      // issue date = now
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 24))  // 24 hours 
+                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_MILLIS))  // 24 hours 
                 .signWith(SignatureAlgorithm.HS256, SECRET_KEY)     // idk about this, some algorithm used for the token
                 .compact();         // this will concatinate all three parts of the final token
     }
@@ -50,11 +69,18 @@ public class JwtUtil {
     }
 
     public String extractEmail(String token){
-        return extractClaims(token, Claims::getSubject);
+        Hs256TokenVerifier.VerifiedToken verified = verifyFast(token);
+        return verified != null ? verified.subject() : extractClaims(token, Claims::getSubject);
     }
 
     public Date extractExpiration(String token){
-        return extractClaims(token, Claims::getExpiration);
+        Hs256TokenVerifier.VerifiedToken verified = verifyFast(token);
+        return verified != null ? new Date(verified.expiresAtMillis()) : extractClaims(token, Claims::getExpiration);
+    }
+
+    // null means the token is not a plain valid one of ours, the jjwt parser decides (and throws) for those
+    private Hs256TokenVerifier.VerifiedToken verifyFast(String token){
+        return fastVerifier != null ? fastVerifier.verify(token) : null;
     }
 
     private boolean isTokenExpired(String token){
@@ -0,0 +1,247 @@
+package com.secure.task.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+// open addressing map from a 128 bit session id (two longs) to the session subject with an expiry per entry.
+// a slot is four longs (key hi, key lo, expiry, subject id) and subjects are interned once per user in a SubjectTable,
+// so a session costs 32 bytes and a user its email's utf-8 bytes plus 20 bytes of bookkeeping.
+// with off heap on, slots and subjects both live in direct buffers outside the gc'd heap
+public class SessionStore {
+
+    private static final int SEGMENTS = 64;
+    private static final long EMPTY = 0;
+    private static final long TOMBSTONE = -1;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final SubjectTable subjects;
+
+    public SessionStore(int initialCapacity, boolean offHeap) {
+        int perSegment = Integer.highestOneBit(Math.max(16, initialCapacity / SEGMENTS - 1) << 1);
+        subjects = new SubjectTable(Math.max(16, initialCapacity / 4), offHeap);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment, offHeap, subjects);
+        }
+    }
+
+    public void put(long hi, long lo, String subject, long expiresAt) {
+        segmentFor(hi).put(hi, lo, subject, expiresAt);
+    }
+
+    // null when the session is unknown or expired
+    public String get(long hi, long lo, long now) {
+        return segmentFor(hi).get(hi, lo, now);
+    }
+
+    public boolean remove(long hi, long lo) {
+        return segmentFor(hi).remove(hi, lo);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public int purgeExpired(long now) {
+        int purged = 0;
+        for (Segment segment : segments) {
+            purged += segment.purgeExpired(now);
+        }
+        return purged;
+    }
+
+    // distinct subjects with at least one stored session
+    int subjectCount() {
+        return subjects.size();
+    }
+
+    private Segment segmentFor(long hi) {
+        return segments[(int) (hi >>> 58)];
+    }
+
+    private static final class Segment {
+        private final boolean offHeap;
+        private final SubjectTable subjects;
+        // per slot: key hi, key lo, expiry, subject id + 1 (or EMPTY / TOMBSTONE)
+        private LongColumns columns;
+        private int capacity;
+        private int mask;
+        private int size;
+        private int tombstones;
+
+        private Segment(int capacity, boolean offHeap, SubjectTable subjects) {
+            this.offHeap = offHeap;
+            this.subjects = subjects;
+            allocate(capacity);
+        }
+
+        private void allocate(int capacity) {
+            columns = offHeap ? new DirectColumns(capacity) : new HeapColumns(capacity);
+            this.capacity = capacity;
+            mask = capacity - 1;
+            size = 0;
+            tombstones = 0;
+        }
+
+        private synchronized void put(long hi, long lo, String subject, long expiresAt) {
+            if ((size + tombstones + 1) * 4 > capacity * 3) {
+                rehash(System.currentTimeMillis());
+            }
+            int subjectId = subjects.acquire(subject);
+            int firstFree = -1;
+            for (int slot = indexOf(lo); ; slot = (slot + 1) & mask) {
+                long state = state(slot);
+                if (state == EMPTY) {
+                    if (firstFree < 0) {
+                        firstFree = slot;
+                    } else {
+                        tombstones--;
+                    }
+                    write(firstFree, hi, lo, subjectId + 1L, expiresAt);
+                    size++;
+                    return;
+                }
+                if (state == TOMBSTONE) {
+                    if (firstFree < 0) {
+                        firstFree = slot;
+                    }
+                } else if (matches(slot, hi, lo)) {
+                    subjects.release((int) (state - 1));
+                    write(slot, hi, lo, subjectId + 1L, expiresAt);
+                    return;
+                }
+            }
+        }
+
+        private synchronized String get(long hi, long lo, long now) {
+            int slot = find(hi, lo);
+            if (slot < 0) {
+                return null;
+            }
+            if (columns.get(slot * 4 + 2) <= now) {
+                clear(slot);
+                return null;
+            }
+            // decoded under the segment lock so a concurrent remove can't hand the id to another subject first
+            return subjects.get((int) (state(slot) - 1));
+        }
+
+        private synchronized boolean remove(long hi, long lo) {
+            int slot = find(hi, lo);
+            if (slot < 0) {
+                return false;
+            }
+            clear(slot);
+            return true;
+        }
+
+        private synchronized int size() {
+            return size;
+        }
+
+        private synchronized int purgeExpired(long now) {
+            int purged = 0;
+            for (int slot = 0; slot < capacity; slot++) {
+                long state = state(slot);
+                if (state != EMPTY && state != TOMBSTONE && columns.get(slot * 4 + 2) <= now) {
+                    clear(slot);
+                    purged++;
+                }
+            }
+            return purged;
+        }
+
+        private int find(long hi, long lo) {
+            for (int slot = indexOf(lo); ; slot = (slot + 1) & mask) {
+                long state = state(slot);
+                if (state == EMPTY) {
+                    return -1;
+                }
+                if (state != TOMBSTONE && matches(slot, hi, lo)) {
+                    return slot;
+                }
+            }
+        }
+
+        // drops expired entries and tombstones, growing only when the live entries still fill half the table.
+        // surviving slots keep their subject reference, nothing is acquired or released while moving them
+        private void rehash(long now) {
+            purgeExpired(now);
+            LongColumns oldColumns = columns;
+            int oldCapacity = capacity;
+            int live = size;
+            allocate(live * 2 > oldCapacity ? oldCapacity << 1 : oldCapacity);
+            for (int slot = 0; slot < oldCapacity; slot++) {
+                long state = oldColumns.get(slot * 4 + 3);
+                if (state != EMPTY && state != TOMBSTONE) {
+                    long hi = oldColumns.get(slot * 4);
+                    long lo = oldColumns.get(slot * 4 + 1);
+                    int target = indexOf(lo);
+                    while (state(target) != EMPTY) {
+                        target = (target + 1) & mask;
+                    }
+                    write(target, hi, lo, state, oldColumns.get(slot * 4 + 2));
+                    size++;
+                }
+            }
+        }
+
+        private long state(int slot) {
+            return columns.get(slot * 4 + 3);
+        }
+
+        private boolean matches(int slot, long hi, long lo) {
+            return columns.get(slot * 4 + 1) == lo && columns.get(slot * 4) == hi;
+        }
+
+        private void write(int slot, long hi, long lo, long state, long expiresAt) {
+            columns.set(slot * 4, hi);
+            columns.set(slot * 4 + 1, lo);
+            columns.set(slot * 4 + 2, expiresAt);
+            columns.set(slot * 4 + 3, state);
+        }
+
+        private void clear(int slot) {
+            subjects.release((int) (state(slot) - 1));
+            columns.set(slot * 4 + 3, TOMBSTONE);
+            size--;
+            tombstones++;
+        }
+
+        // session ids are random, the low bits of lo are as good as any hash
+        private int indexOf(long lo) {
+            return (int) (lo ^ (lo >>> 32)) & mask;
+        }
+    }
+
+    private interface LongColumns {
+        long get(int index);
+        void set(int index, long value);
+    }
+
+    private static final class HeapColumns implements LongColumns {
+        private final long[] values;
+
+        private HeapColumns(int slots) {
+            values = new long[slots * 4];
+        }
+
+        public long get(int index) { return values[index]; }
+        public void set(int index, long value) { values[index] = value; }
+    }
+
+    private static final class DirectColumns implements LongColumns {
+        private final LongBuffer values;
+
+        private DirectColumns(int slots) {
+            values = ByteBuffer.allocateDirect(slots * 4 * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+        }
+
+        public long get(int index) { return values.get(index); }
+        public void set(int index, long value) { values.put(index, value); }
+    }
+}
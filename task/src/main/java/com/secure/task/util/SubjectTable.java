@@ -0,0 +1,253 @@
+package com.secure.task.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// reference counted intern table for session subjects, a user's email is stored once however many sessions it has.
+// the utf-8 bytes sit in one arena buffer and the bookkeeping in int columns, both direct buffers in off heap mode,
+// so the heap holds a handful of objects no matter how many subjects there are
+final class SubjectTable {
+
+    // per id: arena offset (next free id while the id is unused), byte length, reference count, hash
+    private static final int FIELDS = 4;
+
+    private final boolean offHeap;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private IntColumns entries;
+    private int entryCapacity;
+    private int nextId;
+    private int freeHead = -1;
+    private int live;
+
+    // open addressing over id + 1, zero marks an empty slot
+    private IntColumns index;
+    private int indexMask;
+
+    private ByteBuffer arena;
+    private int arenaUsed;
+    private int arenaGarbage;
+
+    SubjectTable(int initialCapacity, boolean offHeap) {
+        this.offHeap = offHeap;
+        this.entryCapacity = Math.max(16, initialCapacity);
+        this.entries = columns(entryCapacity * FIELDS);
+        int indexCapacity = Integer.highestOneBit(entryCapacity * 2 - 1) << 1;
+        this.index = columns(indexCapacity);
+        this.indexMask = indexCapacity - 1;
+        this.arena = buffer(entryCapacity * 32);
+    }
+
+    // id for the subject, taking one reference that release gives back
+    int acquire(String subject) {
+        byte[] bytes = subject.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(bytes);
+        lock.writeLock().lock();
+        try {
+            int slot = hash & indexMask;
+            for (int value = index.get(slot); value != 0; value = index.get(slot)) {
+                int id = value - 1;
+                if (entries.get(id * FIELDS + 3) == hash && sameBytes(id, bytes)) {
+                    entries.set(id * FIELDS + 2, entries.get(id * FIELDS + 2) + 1);
+                    return id;
+                }
+                slot = (slot + 1) & indexMask;
+            }
+            return insert(bytes, hash);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void release(int id) {
+        lock.writeLock().lock();
+        try {
+            int refs = entries.get(id * FIELDS + 2) - 1;
+            entries.set(id * FIELDS + 2, refs);
+            if (refs == 0) {
+                unlink(id);
+                arenaGarbage += entries.get(id * FIELDS + 1);
+                entries.set(id * FIELDS, freeHead);
+                freeHead = id;
+                live--;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    String get(int id) {
+        lock.readLock().lock();
+        try {
+            byte[] bytes = new byte[entries.get(id * FIELDS + 1)];
+            arena.get(entries.get(id * FIELDS), bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int insert(byte[] bytes, int hash) {
+        if ((live + 1) * 4 > (indexMask + 1) * 3) {
+            resizeIndex((indexMask + 1) << 1);
+        }
+        reserve(bytes.length);
+        int id = allocateId();
+        int offset = arenaUsed;
+        arena.put(offset, bytes);
+        arenaUsed += bytes.length;
+        entries.set(id * FIELDS, offset);
+        entries.set(id * FIELDS + 1, bytes.length);
+        entries.set(id * FIELDS + 2, 1);
+        entries.set(id * FIELDS + 3, hash);
+        link(id, hash);
+        live++;
+        return id;
+    }
+
+    private int allocateId() {
+        if (freeHead >= 0) {
+            int id = freeHead;
+            freeHead = entries.get(id * FIELDS);
+            return id;
+        }
+        if (nextId == entryCapacity) {
+            IntColumns grown = columns(entryCapacity * 2 * FIELDS);
+            for (int i = 0; i < entryCapacity * FIELDS; i++) {
+                grown.set(i, entries.get(i));
+            }
+            entries = grown;
+            entryCapacity *= 2;
+        }
+        return nextId++;
+    }
+
+    // makes room for length more bytes, compacting away released subjects and growing while live bytes fill half the arena
+    private void reserve(int length) {
+        if (arenaUsed + length <= arena.capacity()) {
+            return;
+        }
+        int needed = arenaUsed - arenaGarbage + length;
+        int capacity = arena.capacity();
+        while (needed > capacity / 2) {
+            capacity <<= 1;
+        }
+        ByteBuffer compacted = buffer(capacity);
+        int used = 0;
+        for (int id = 0; id < nextId; id++) {
+            if (entries.get(id * FIELDS + 2) > 0) {
+                int offset = entries.get(id * FIELDS);
+                int bytes = entries.get(id * FIELDS + 1);
+                compacted.put(used, arena, offset, bytes);
+                entries.set(id * FIELDS, used);
+                used += bytes;
+            }
+        }
+        arena = compacted;
+        arenaUsed = used;
+        arenaGarbage = 0;
+    }
+
+    private void resizeIndex(int capacity) {
+        index = columns(capacity);
+        indexMask = capacity - 1;
+        for (int id = 0; id < nextId; id++) {
+            if (entries.get(id * FIELDS + 2) > 0) {
+                link(id, entries.get(id * FIELDS + 3));
+            }
+        }
+    }
+
+    private void link(int id, int hash) {
+        int slot = hash & indexMask;
+        while (index.get(slot) != 0) {
+            slot = (slot + 1) & indexMask;
+        }
+        index.set(slot, id + 1);
+    }
+
+    // linear probing delete, shifting later entries back into the hole instead of leaving tombstones
+    private void unlink(int id) {
+        int hole = entries.get(id * FIELDS + 3) & indexMask;
+        while (index.get(hole) != id + 1) {
+            hole = (hole + 1) & indexMask;
+        }
+        for (int next = (hole + 1) & indexMask; index.get(next) != 0; next = (next + 1) & indexMask) {
+            int home = entries.get((index.get(next) - 1) * FIELDS + 3) & indexMask;
+            if (((next - home) & indexMask) >= ((next - hole) & indexMask)) {
+                index.set(hole, index.get(next));
+                hole = next;
+            }
+        }
+        index.set(hole, 0);
+    }
+
+    private boolean sameBytes(int id, byte[] bytes) {
+        if (entries.get(id * FIELDS + 1) != bytes.length) {
+            return false;
+        }
+        int offset = entries.get(id * FIELDS);
+        for (int i = 0; i < bytes.length; i++) {
+            if (arena.get(offset + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(byte[] bytes) {
+        int hash = 1;
+        for (byte b : bytes) {
+            hash = 31 * hash + b;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private ByteBuffer buffer(int capacity) {
+        return offHeap ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    private IntColumns columns(int size) {
+        return offHeap ? new DirectInts(size) : new HeapInts(size);
+    }
+
+    private interface IntColumns {
+        int get(int index);
+        void set(int index, int value);
+    }
+
+    private static final class HeapInts implements IntColumns {
+        private final int[] values;
+
+        private HeapInts(int size) {
+            values = new int[size];
+        }
+
+        public int get(int index) { return values[index]; }
+        public void set(int index, int value) { values[index] = value; }
+    }
+
+    private static final class DirectInts implements IntColumns {
+        private final IntBuffer values;
+
+        private DirectInts(int size) {
+            values = ByteBuffer.allocateDirect(size * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+
+        public int get(int index) { return values.get(index); }
+        public void set(int index, int value) { values.put(index, value); }
+    }
+}
@@ -0,0 +1,23 @@
+package com.secure.task;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// a jpa slice on h2 with the schema generated from the entities. no test managed transaction,
+// so repository calls open their own the way they do in the app (shard routing depends on that)
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "debug=false"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public @interface H2JpaTest {
+}
@@ -0,0 +1,49 @@
+package com.secure.task;
+
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.secure.task.entities.UserEntity;
+
+// h2 databases holding user_details, with the table generated from the UserEntity mapping the same way
+// ddl-auto does it, so tests that talk to shards over plain jdbc never carry a hand written copy of the schema
+public final class UserTables {
+
+    private UserTables() {
+    }
+
+    public static DataSource newDatabase(String name) {
+        DataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "_" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        create(dataSource);
+        return dataSource;
+    }
+
+    // creates (or brings up to date) user_details on the given database, by starting hibernate with ddl-auto=update
+    public static void create(DataSource dataSource) {
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE, dataSource)
+                .applySetting(AvailableSettings.HBM2DDL_AUTO, "update")
+                .applySetting(AvailableSettings.HBM2DDL_HALT_ON_ERROR, true)
+                .build();
+        try {
+            new MetadataSources(registry)
+                    .addAnnotatedClass(UserEntity.class)
+                    .getMetadataBuilder()
+                    .applyPhysicalNamingStrategy(new CamelCaseToUnderscoresNamingStrategy())
+                    .build()
+                    .buildSessionFactory()
+                    .close();
+        } finally {
+            StandardServiceRegistryBuilder.destroy(registry);
+        }
+    }
+}
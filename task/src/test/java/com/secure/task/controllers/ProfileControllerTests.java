@@ -0,0 +1,96 @@
+package com.secure.task.controllers;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.method.annotation.CurrentSecurityContextArgumentResolver;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.secure.task.io.ProfileResponse;
+import com.secure.task.io.ProfileVersion;
+import com.secure.task.services.EmailService;
+import com.secure.task.services.ProfileService;
+
+class ProfileControllerTests {
+
+    private static final String EMAIL = "a@example.com";
+    private static final String ETAG = "\"user-1-18c\"";
+    // whole seconds, http dates carry nothing finer
+    private static final long UPDATED_AT = 1_700_000_000_000L;
+
+    private final ProfileService profileService = mock(ProfileService.class);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new ProfileController(profileService, mock(EmailService.class)))
+                .setCustomArgumentResolvers(new CurrentSecurityContextArgumentResolver())
+                .build();
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(EMAIL, null));
+        when(profileService.getProfileVersion(EMAIL)).thenReturn(new ProfileVersion(ETAG, UPDATED_AT));
+        when(profileService.getProfile(EMAIL)).thenReturn(ProfileResponse.builder()
+                .userId("user-1").name("a").email(EMAIL).eTag(ETAG).lastModified(UPDATED_AT).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void fullResponseCarriesBothValidators() throws Exception {
+        mockMvc.perform(get("/profile"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, UPDATED_AT))
+                .andExpect(jsonPath("$.email").value(EMAIL));
+        verify(profileService, never()).getProfileVersion(EMAIL);
+    }
+
+    @Test
+    void matchingETagIsNotModified() throws Exception {
+        mockMvc.perform(get("/profile").header(HttpHeaders.IF_NONE_MATCH, ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(content().string(""));
+        verify(profileService, never()).getProfile(EMAIL);
+    }
+
+    @Test
+    void ifModifiedSinceIsCheckedAgainstUpdatedAt() throws Exception {
+        mockMvc.perform(get("/profile").header(HttpHeaders.IF_MODIFIED_SINCE, httpDate(UPDATED_AT)))
+                .andExpect(status().isNotModified())
+                .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, UPDATED_AT));
+        verify(profileService, never()).getProfile(EMAIL);
+
+        // the row changed since the client's copy
+        mockMvc.perform(get("/profile").header(HttpHeaders.IF_MODIFIED_SINCE, httpDate(UPDATED_AT - 60_000)))
+                .andExpect(status().isOk())
+                .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, UPDATED_AT))
+                .andExpect(jsonPath("$.email").value(EMAIL));
+    }
+
+    private static String httpDate(long millis) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                ZonedDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,209 @@
+package com.secure.task.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntToLongFunction;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.secure.task.filter.ConcurrencyLimitFilter.EndpointClass;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+
+class ConcurrencyLimitFilterTests {
+
+    private static final int CLIENTS = 32;
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+    // the healthy backend: a pool of 4 connections, every call holds one for 2ms, so more callers just queue
+    private static final IntToLongFunction QUEUEING_BACKEND = admitted -> 2 * MILLIS * ((admitted + 3) / 4);
+
+    // the limiter only ever sees this clock, rounds move it forward by exactly the latency they simulate
+    private final AtomicLong clock = new AtomicLong();
+    private final ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+
+    @AfterEach
+    void tearDown() {
+        clients.shutdownNow();
+    }
+
+    @Test
+    void slowBackendShrinksTheLimitAndShedsTheRest() throws Exception {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(new MockEnvironment()
+                .withProperty("limiter.auth.initial-limit", "40")
+                .withProperty("limiter.auth.min-limit", "2"), registry, clock::get);
+
+        // light traffic first, that is where the no-load latency is learned
+        for (int i = 0; i < 20; i++) {
+            round(filter, 4, QUEUEING_BACKEND);
+        }
+        int shed = 0;
+        for (int i = 0; i < 300; i++) {
+            shed += round(filter, CLIENTS, QUEUEING_BACKEND);
+        }
+
+        int limit = filter.getLimit(EndpointClass.AUTH).getLimit();
+        assertTrue(shed > 0, "nothing was shed");
+        // 32 clients against a backend of 4, the limit has to end up well below where it started
+        assertTrue(limit < 20, "limit stayed at " + limit);
+        assertEquals(shed, registry.get("app.limiter.rejected").tag("class", "auth").counter().count());
+        assertEquals(0, filter.getLimit(EndpointClass.AUTH).getInFlight());
+    }
+
+    @Test
+    void sustainedSlowdownIsShedUntilTheBaselineWindowPasses() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(new MockEnvironment()
+                .withProperty("limiter.baseline-window-seconds", "120"), new SimpleMeterRegistry(), clock::get);
+        for (int i = 0; i < 20; i++) {
+            round(filter, 4, admitted -> 2 * MILLIS);
+        }
+
+        // mysql got 4x slower: 5000 rounds are ~15000 samples but only 40 seconds, the limit has to stay down
+        int shedAtTheEnd = 0;
+        for (int i = 0; i < 5000; i++) {
+            int shed = round(filter, CLIENTS, admitted -> 8 * MILLIS);
+            if (i >= 4900) {
+                shedAtTheEnd += shed;
+            }
+        }
+        int limit = filter.getLimit(EndpointClass.AUTH).getLimit();
+        assertTrue(limit <= 8, "limit recovered to " + limit + " while the backend was still slow");
+        assertTrue(shedAtTheEnd > 0, "stopped shedding");
+
+        // two windows later the slow latency is the new normal and the limit opens up again
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(240));
+        for (int i = 0; i < 200; i++) {
+            round(filter, CLIENTS, admitted -> 8 * MILLIS);
+        }
+        limit = filter.getLimit(EndpointClass.AUTH).getLimit();
+        assertTrue(limit >= CLIENTS, "limit stayed at " + limit);
+    }
+
+    @Test
+    void readsKeepTheirCapacityWhileAuthIsSaturated() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(new MockEnvironment()
+                .withProperty("limiter.auth.initial-limit", "2")
+                .withProperty("limiter.auth.min-limit", "2")
+                .withProperty("limiter.auth.max-limit", "2"), new SimpleMeterRegistry());
+
+        CountDownLatch entered = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain stuckChain = (request, response) -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        List<Thread> stuck = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    filter.doFilter(request("POST", "/login"), new MockHttpServletResponse(), stuckChain);
+                } catch (Exception ex) {
+                    throw new IllegalStateException(ex);
+                }
+            });
+            stuck.add(thread);
+            thread.start();
+        }
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        try {
+            MockHttpServletResponse login = new MockHttpServletResponse();
+            filter.doFilter(request("POST", "/login"), login, (request, response) -> {});
+            assertEquals(503, login.getStatus());
+            assertTrue(login.getContentAsString().contains("\"error\": true"));
+
+            MockHttpServletResponse read = new MockHttpServletResponse();
+            filter.doFilter(request("GET", "/is-authenticated"), read, (request, response) -> {});
+            assertEquals(200, read.getStatus());
+        } finally {
+            release.countDown();
+            for (Thread thread : stuck) {
+                thread.join();
+            }
+        }
+    }
+
+    @Test
+    void asyncRequestKeepsItsSlotUntilItCompletes() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(new MockEnvironment(), new SimpleMeterRegistry(), clock::get);
+        MockHttpServletRequest export = request("GET", "/admin/users/export");
+        export.setAsyncSupported(true);
+
+        filter.doFilter(export, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+        assertEquals(1, filter.getLimit(EndpointClass.DEFAULT).getInFlight());
+
+        ((MockAsyncContext) export.getAsyncContext()).complete();
+        assertEquals(0, filter.getLimit(EndpointClass.DEFAULT).getInFlight());
+    }
+
+    // clients /login calls arrive together, the admitted ones all take latency(admitted) on the clock. returns the shed count
+    private int round(ConcurrencyLimitFilter filter, int clients, IntToLongFunction latency) throws Exception {
+        CountDownLatch arrived = new CountDownLatch(clients);
+        CountDownLatch finish = new CountDownLatch(1);
+        AtomicInteger admitted = new AtomicInteger();
+        FilterChain backend = (request, response) -> {
+            admitted.incrementAndGet();
+            arrived.countDown();
+            try {
+                finish.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        List<Future<MockHttpServletResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            responses.add(this.clients.submit(() -> {
+                MockHttpServletResponse response = new MockHttpServletResponse();
+                filter.doFilter(request("POST", "/login"), response, backend);
+                if (response.getStatus() == 503) {
+                    arrived.countDown();
+                }
+                return response;
+            }));
+        }
+        assertTrue(arrived.await(5, TimeUnit.SECONDS));
+        clock.addAndGet(latency.applyAsLong(admitted.get()));
+        finish.countDown();
+
+        int shed = 0;
+        for (Future<MockHttpServletResponse> response : responses) {
+            int status = response.get().getStatus();
+            if (status == 503) {
+                assertEquals("1", response.get().getHeader("Retry-After"));
+                shed++;
+            } else {
+                assertEquals(200, status);
+            }
+        }
+        return shed;
+    }
+
+    private static MockHttpServletRequest request(String method, String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setServletPath(path);
+        return request;
+    }
+}
@@ -0,0 +1,93 @@
+package com.secure.task.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.secure.task.util.IdempotencyStore;
+
+import jakarta.servlet.FilterChain;
+
+class IdempotencyFilterTests {
+
+    private IdempotencyFilter filter;
+    private final AtomicInteger executions = new AtomicInteger();
+
+    // stands in for /register: echoes the body it was given, which is what a replay hands back
+    private final FilterChain registerChain = (request, response) -> {
+        executions.incrementAndGet();
+        byte[] body = request.getInputStream().readAllBytes();
+        response.setContentType("application/json");
+        response.getOutputStream().write(body);
+    };
+
+    @BeforeEach
+    void setUp() {
+        IdempotencyStore store = new IdempotencyStore();
+        ReflectionTestUtils.setField(store, "ttlMillis", 60_000L);
+        ReflectionTestUtils.setField(store, "maxEntries", 100);
+        filter = new IdempotencyFilter(store);
+    }
+
+    @Test
+    void replaysTheSameRequest() throws Exception {
+        String body = "{\"name\":\"a\",\"email\":\"a@example.com\",\"password\":\"secret\"}";
+        filter.doFilter(register("key-1", body), new MockHttpServletResponse(), registerChain);
+
+        MockHttpServletResponse replay = new MockHttpServletResponse();
+        filter.doFilter(register("key-1", body), replay, registerChain);
+
+        assertEquals(1, executions.get());
+        assertEquals(200, replay.getStatus());
+        assertEquals("true", replay.getHeader("Idempotent-Replayed"));
+        assertEquals(body, replay.getContentAsString());
+    }
+
+    @Test
+    void rejectsTheKeyWithADifferentBody() throws Exception {
+        filter.doFilter(register("key-1", "{\"email\":\"a@example.com\"}"), new MockHttpServletResponse(), registerChain);
+
+        MockHttpServletResponse other = new MockHttpServletResponse();
+        filter.doFilter(register("key-1", "{\"email\":\"b@example.com\"}"), other, registerChain);
+
+        assertEquals(1, executions.get());
+        assertEquals(422, other.getStatus());
+        assertNull(other.getHeader("Idempotent-Replayed"));
+    }
+
+    @Test
+    void duplicateWhileTheFirstIsRunningGetsA409RightAway() throws Exception {
+        String body = "{\"email\":\"a@example.com\"}";
+        MockHttpServletResponse duplicate = new MockHttpServletResponse();
+        // the duplicate arrives while the first request is still inside the chain
+        FilterChain slowRegister = (request, response) -> {
+            filter.doFilter(register("key-1", body), duplicate, registerChain);
+            registerChain.doFilter(request, response);
+        };
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        filter.doFilter(register("key-1", body), first, slowRegister);
+
+        assertEquals(409, duplicate.getStatus());
+        assertEquals("1", duplicate.getHeader("Retry-After"));
+        assertEquals(200, first.getStatus());
+        assertEquals(1, executions.get());
+    }
+
+    private static MockHttpServletRequest register(String key, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/register");
+        request.setServletPath("/register");
+        request.setContentType("application/json");
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
@@ -0,0 +1,111 @@
+package com.secure.task.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.secure.task.H2JpaTest;
+import com.secure.task.entities.UserEntity;
+
+// the export's keyset query against h2: page boundaries and the verified / created_at filters
+@H2JpaTest
+class UserRepositoryTests {
+
+    private static final int USERS = 25;
+    private static final LocalDateTime FIRST_CREATED = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        jdbc.update("DELETE FROM user_details");
+        jdbc.execute("ALTER TABLE user_details ALTER COLUMN id RESTART WITH 1");
+        // ids 1..25, one user a day, every third one verified. inserted directly since created_at is set by hibernate on save
+        for (int i = 1; i <= USERS; i++) {
+            jdbc.update("INSERT INTO user_details (user_id, name, email, password, is_account_verified, created_at, updated_at)"
+                    + " VALUES (?, 'user', ?, '$2a$10$hash', ?, ?, ?)",
+                    UUID.randomUUID().toString(), "user" + i + "@example.com", i % 3 == 0, created(i), created(i));
+        }
+    }
+
+    @Test
+    void pagesCoverEveryUserOnceInIdOrder() {
+        List<List<Long>> pages = walk(null, null, null, 4);
+
+        assertEquals(7, pages.size());
+        for (int i = 0; i < 6; i++) {
+            assertEquals(4, pages.get(i).size());
+        }
+        assertEquals(List.of(25L), pages.get(6));
+        assertEquals(range(1, USERS), flatten(pages));
+        assertTrue(userRepository.findPageAfter(25L, null, null, null, Limit.of(4)).isEmpty());
+    }
+
+    @Test
+    void pageSizeDividingTheTotalEndsOnAnEmptyPage() {
+        List<List<Long>> pages = walk(null, null, null, 5);
+
+        assertEquals(5, pages.size());
+        assertEquals(range(1, USERS), flatten(pages));
+    }
+
+    @Test
+    void filtersOnVerifiedAndAHalfOpenCreationWindow() {
+        // from is inclusive and to exclusive, both land exactly on a row
+        Timestamp from = created(6);
+        Timestamp to = created(21);
+
+        assertEquals(List.of(6L, 9L, 12L, 15L, 18L), flatten(walk(true, from, to, 2)));
+        assertEquals(List.of(7L, 8L, 10L, 11L, 13L, 14L, 16L, 17L, 19L, 20L), flatten(walk(false, from, to, 3)));
+        assertEquals(range(6, 20), flatten(walk(null, from, to, 4)));
+        assertEquals(List.of(3L, 6L, 9L, 12L, 15L, 18L, 21L, 24L), flatten(walk(true, null, null, 3)));
+        assertEquals(range(21, USERS), flatten(walk(null, to, null, 2)));
+        assertEquals(range(1, 5), flatten(walk(null, null, from, 2)));
+    }
+
+    // the export's loop: seek past the last id of each page until a page comes back empty
+    private List<List<Long>> walk(Boolean verified, Timestamp from, Timestamp to, int pageSize) {
+        List<List<Long>> pages = new ArrayList<>();
+        long afterId = 0;
+        while (true) {
+            List<Long> ids = userRepository.findPageAfter(afterId, verified, from, to, Limit.of(pageSize))
+                    .stream().map(UserEntity::getId).toList();
+            if (ids.isEmpty()) {
+                return pages;
+            }
+            assertTrue(ids.size() <= pageSize);
+            pages.add(ids);
+            afterId = ids.get(ids.size() - 1);
+        }
+    }
+
+    private static List<Long> flatten(List<List<Long>> pages) {
+        return pages.stream().flatMap(List::stream).toList();
+    }
+
+    private static List<Long> range(long first, long last) {
+        List<Long> ids = new ArrayList<>();
+        for (long id = first; id <= last; id++) {
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    private static Timestamp created(int id) {
+        return Timestamp.valueOf(FIRST_CREATED.plusDays(id - 1));
+    }
+}
@@ -0,0 +1,63 @@
+package com.secure.task.services;
+
+import java.util.List;
+
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import jakarta.mail.internet.MimeMessage;
+
+// not part of the unit suite (surefire only picks up *Tests), run its main by hand to compare a connection per
+// message with the pool against a stub relay that charges a fixed delay for every new connection
+public final class SmtpTransportPoolBenchmark {
+
+    private static final int MESSAGES = 200;
+    private static final long CONNECT_DELAY_MILLIS = 20;
+
+    private SmtpTransportPoolBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        SmtpStub stub = new SmtpStub(CONNECT_DELAY_MILLIS);
+        try {
+            JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+            mailSender.setHost("localhost");
+            mailSender.setPort(stub.getPort());
+            mailSender.setProtocol("smtp");
+
+            long start = System.nanoTime();
+            for (int i = 0; i < MESSAGES; i++) {
+                SimpleMailMessage message = new SimpleMailMessage();
+                message.setFrom("support@example.com");
+                message.setTo("user" + i + "@example.com");
+                message.setSubject(EmailTemplate.VERIFY_OTP.getSubject());
+                message.setText(EmailTemplate.VERIFY_OTP.render("123456"));
+                mailSender.send(message);
+            }
+            long perMessageMillis = (System.nanoTime() - start) / 1_000_000;
+
+            SmtpTransportPool pool = new SmtpTransportPool(mailSender, 2, 60000, 100, 5000);
+            start = System.nanoTime();
+            try {
+                for (int i = 0; i < MESSAGES; i++) {
+                    MimeMessage message = mailSender.createMimeMessage();
+                    MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+                    helper.setFrom("support@example.com");
+                    helper.setTo("user" + i + "@example.com");
+                    helper.setSubject(EmailTemplate.VERIFY_OTP.getSubject());
+                    helper.setText(EmailTemplate.VERIFY_OTP.render("123456"));
+                    pool.send(List.of(message));
+                }
+            } finally {
+                pool.close();
+            }
+            long pooledMillis = (System.nanoTime() - start) / 1_000_000;
+
+            System.out.printf("%d messages: connection per message %d ms, pooled %d ms%n",
+                    MESSAGES, perMessageMillis, pooledMillis);
+        } finally {
+            stub.close();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.secure.task.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import jakarta.mail.internet.MimeMessage;
+
+class SmtpTransportPoolTests {
+
+    private static final int MESSAGES = 50;
+
+    private SmtpStub stub;
+    private JavaMailSenderImpl mailSender;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stub = new SmtpStub(0);
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(stub.getPort());
+        mailSender.setProtocol("smtp");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        stub.close();
+    }
+
+    @Test
+    void reusesConnectionsAcrossSends() throws Exception {
+        SmtpTransportPool pool = new SmtpTransportPool(mailSender, 2, 60000, 100, 5000);
+        try {
+            for (int i = 0; i < MESSAGES; i++) {
+                pool.send(List.of(message("user" + i + "@example.com")));
+            }
+        } finally {
+            pool.close();
+        }
+
+        assertEquals(MESSAGES, stub.messages.get());
+        assertEquals(1, stub.connections.get());
+    }
+
+    @Test
+    void reconnectsAfterMessageLimit() throws Exception {
+        SmtpTransportPool pool = new SmtpTransportPool(mailSender, 1, 60000, 10, 5000);
+        try {
+            List<MimeMessage> batch = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                batch.add(message("user" + i + "@example.com"));
+            }
+            pool.send(batch);
+            pool.send(List.of(message("late@example.com")));
+        } finally {
+            pool.close();
+        }
+
+        assertEquals(11, stub.messages.get());
+        assertEquals(2, stub.connections.get());
+    }
+
+    @Test
+    void evictsIdleConnections() throws Exception {
+        SmtpTransportPool pool = new SmtpTransportPool(mailSender, 1, 0, 100, 5000);
+        try {
+            pool.send(List.of(message("user@example.com")));
+            Thread.sleep(5);
+            pool.evictIdle();
+            assertEquals(0, pool.getIdleCount());
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    void connectionPerMessageOpensOneConnectionEach() throws Exception {
+        for (int i = 0; i < MESSAGES; i++) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom("support@example.com");
+            message.setTo("user" + i + "@example.com");
+            message.setSubject("Verification OTP");
+            message.setText("use this OTP to verify your account 123456");
+            mailSender.send(message);
+        }
+
+        // what the pool saves: the same messages through reusesConnectionsAcrossSends take a single connection
+        assertEquals(MESSAGES, stub.messages.get());
+        assertEquals(MESSAGES, stub.connections.get());
+    }
+
+    private MimeMessage message(String to) throws Exception {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+        helper.setFrom("support@example.com");
+        helper.setTo(to);
+        helper.setSubject(EmailTemplate.VERIFY_OTP.getSubject());
+        helper.setText(EmailTemplate.VERIFY_OTP.render("123456"));
+        return message;
+    }
+}
@@ -0,0 +1,54 @@
+package com.secure.task.sharding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class ConsistentHashRingTests {
+
+    private static final int KEYS = 10000;
+
+    @Test
+    void routesByNormalizedEmail() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("a", "b", "c"), 128);
+
+        assertEquals(ring.ownerOf("someone@gmail.com"), ring.ownerOf("  SomeOne@Gmail.com "));
+    }
+
+    @Test
+    void spreadsKeysAcrossShards() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("a", "b", "c"), 128);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.ownerOf("user" + i + "@example.com"), 1, Integer::sum);
+        }
+
+        for (String shard : ring.getShards()) {
+            int count = counts.getOrDefault(shard, 0);
+            assertTrue(count > KEYS / 5 && count < KEYS / 2, shard + " owns " + count + " keys");
+        }
+    }
+
+    @Test
+    void addingShardOnlyMovesKeysOntoIt() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("a", "b"), 128);
+        ConsistentHashRing after = before.with("c");
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String email = "user" + i + "@example.com";
+            String oldOwner = before.ownerOf(email);
+            String newOwner = after.ownerOf(email);
+            if (!oldOwner.equals(newOwner)) {
+                assertEquals("c", newOwner);
+                moved++;
+            }
+        }
+
+        assertTrue(moved > KEYS / 5 && moved < KEYS / 2, moved + " keys moved");
+    }
+}
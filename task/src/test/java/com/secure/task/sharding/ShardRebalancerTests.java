@@ -0,0 +1,164 @@
+package com.secure.task.sharding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.secure.task.UserTables;
+
+class ShardRebalancerTests {
+
+    private static final int USERS = 300;
+
+    private final Map<String, DataSource> shards = new LinkedHashMap<>();
+    private ShardTopologyStore store;
+    private ShardRouter router;
+
+    @BeforeEach
+    void setUp() {
+        for (String name : List.of("a", "b", "c")) {
+            shards.put(name, UserTables.newDatabase("shard_" + name));
+        }
+
+        store = new ShardTopologyStore(shards.get("a"));
+        store.createTableIfMissing();
+        router = newNode();
+        for (int i = 0; i < USERS; i++) {
+            String email = "user" + i + "@example.com";
+            new JdbcTemplate(shards.get(router.shardFor(email))).update(
+                    "INSERT INTO user_details (user_id, name, email, password, is_account_verified, verify_otp_expire_at, reset_otp_expire_at) VALUES (?, ?, ?, ?, ?, 0, 0)",
+                    UUID.randomUUID().toString(), "user " + i, email, "$2a$10$hash" + i, i % 2 == 0);
+        }
+    }
+
+    @Test
+    void promotingShardMovesItsKeysAndKeepsEveryUser() {
+        ShardRebalancer rebalancer = new ShardRebalancer(router, shards, store, 0);
+
+        rebalancer.promote("c");
+
+        assertNull(rebalancer.getLastError());
+        assertFalse(router.isMigrating());
+        assertEquals(List.of("a", "b", "c"), List.copyOf(router.getRing().getShards()));
+        assertTrue(rebalancer.getMovedRows() > 0);
+        assertEquals(rebalancer.getMovedRows(), count("c"));
+        assertEquals(USERS, count("a") + count("b") + count("c"));
+
+        for (String shard : shards.keySet()) {
+            List<String> emails = new JdbcTemplate(shards.get(shard)).queryForList("SELECT email FROM user_details", String.class);
+            for (String email : emails) {
+                assertEquals(shard, router.shardFor(email), email + " is on the wrong shard");
+            }
+        }
+    }
+
+    @Test
+    void movedRowsKeepTheirColumns() {
+        String email = firstMovedEmail();
+        Map<String, Object> before = new JdbcTemplate(shards.get(router.shardFor(email)))
+                .queryForMap("SELECT user_id, name, password, is_account_verified FROM user_details WHERE email = ?", email);
+
+        new ShardRebalancer(router, shards, store, 0).promote("c");
+
+        Map<String, Object> after = new JdbcTemplate(shards.get("c"))
+                .queryForMap("SELECT user_id, name, password, is_account_verified FROM user_details WHERE email = ?", email);
+        assertEquals(before, after);
+    }
+
+    @Test
+    void promotionReachesOtherNodesAndSurvivesRestarts() {
+        ShardRouter otherNode = newNode();
+        ShardTopologyRefresher refresher = new ShardTopologyRefresher(otherNode, store, 60_000);
+        try {
+            new ShardRebalancer(router, shards, store, 0).promote("c");
+
+            refresher.refresh();
+            ShardRouter restartedNode = newNode();
+            for (int i = 0; i < USERS; i++) {
+                String email = "user" + i + "@example.com";
+                assertEquals(router.shardFor(email), otherNode.shardFor(email));
+                assertEquals(router.shardFor(email), restartedNode.shardFor(email));
+            }
+            assertEquals(List.of("a", "b", "c"), List.copyOf(restartedNode.getRing().getShards()));
+            assertFalse(restartedNode.isMigrating());
+        } finally {
+            refresher.close();
+        }
+    }
+
+    @Test
+    void newerRowOnTheOldOwnerWinsOverAnOlderCopy() {
+        String email = firstMovedEmail();
+        String oldOwner = router.shardFor(email);
+        JdbcTemplate old = new JdbcTemplate(shards.get(oldOwner));
+        JdbcTemplate target = new JdbcTemplate(shards.get("c"));
+        // a stale copy already on the target, and the row on the old owner written after it
+        target.update("INSERT INTO user_details (user_id, name, email, password, is_account_verified, reset_otp, verify_otp_expire_at, reset_otp_expire_at, updated_at) "
+                + "VALUES ('stale', 'stale', ?, 'stale', FALSE, '1111', 0, 0, TIMESTAMP '2020-01-01 00:00:00')", email);
+        old.update("UPDATE user_details SET reset_otp = '2222', updated_at = CURRENT_TIMESTAMP WHERE email = ?", email);
+
+        new ShardRebalancer(router, shards, store, 0).promote("c");
+
+        assertEquals("2222", target.queryForObject("SELECT reset_otp FROM user_details WHERE email = ?", String.class, email));
+        assertEquals(0, old.queryForObject("SELECT COUNT(*) FROM user_details WHERE email = ?", Long.class, email));
+    }
+
+    @Test
+    void routerFallsBackToOldOwnerWhileMigrating() {
+        ConsistentHashRing before = router.getRing();
+        assertTrue(store.compareAndSet(router.getVersion(), List.of("a", "b"), List.of("a", "b", "c")));
+        router.apply(store.load());
+
+        for (int i = 0; i < USERS; i++) {
+            String email = "user" + i + "@example.com";
+            String previous = router.previousShardFor(email);
+            if ("c".equals(router.shardFor(email))) {
+                assertEquals(before.ownerOf(email), previous);
+            } else {
+                assertNull(previous);
+            }
+        }
+
+        assertTrue(store.compareAndSet(router.getVersion(), List.of("a", "b", "c"), null));
+        router.apply(store.load());
+        assertNull(router.previousShardFor("user0@example.com"));
+    }
+
+    // what ShardingConfig does on startup
+    private ShardRouter newNode() {
+        ShardTopologyStore.Topology topology = store.load();
+        if (topology == null) {
+            topology = store.initialize(List.of("a", "b"));
+        }
+        ShardRouter node = new ShardRouter(new ConsistentHashRing(topology.activeShards(), 128));
+        node.apply(topology);
+        return node;
+    }
+
+    private String firstMovedEmail() {
+        ConsistentHashRing grown = router.getRing().with("c");
+        for (int i = 0; i < USERS; i++) {
+            String candidate = "user" + i + "@example.com";
+            if ("c".equals(grown.ownerOf(candidate))) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("no key moves to c");
+    }
+
+    private long count(String shard) {
+        return new JdbcTemplate(shards.get(shard)).queryForObject("SELECT COUNT(*) FROM user_details", Long.class);
+    }
+}
@@ -0,0 +1,174 @@
+package com.secure.task.sharding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.secure.task.H2JpaTest;
+import com.secure.task.UserTables;
+import com.secure.task.entities.UserEntity;
+import com.secure.task.repositories.UserRepository;
+
+// the real UserRepository wired by ShardingConfig (its post processor puts the routing interceptor in front of the
+// spring data proxy) over three h2 shards, c joining. every test gets fresh shards and a fresh stored topology
+@H2JpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ShardingConfig.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ShardRoutingInterceptorTests {
+
+    private static final int USERS = 60;
+
+    @Autowired
+    private ShardRoutingDataSource routingDataSource;
+    @Autowired
+    private ShardTopologyStore store;
+    @Autowired
+    private ShardRouter router;
+    @Autowired
+    private UserRepository userRepository;
+
+    private Map<String, DataSource> shards;
+
+    @DynamicPropertySource
+    static void shards(DynamicPropertyRegistry registry) {
+        String run = UUID.randomUUID().toString();
+        registry.add("sharding.enabled", () -> "true");
+        registry.add("sharding.topology-refresh-millis", () -> "60000");
+        List<String> names = List.of("a", "b", "c");
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i);
+            registry.add("sharding.shards[" + i + "].name", () -> name);
+            registry.add("sharding.shards[" + i + "].url", () -> "jdbc:h2:mem:routing_" + name + "_" + run + ";DB_CLOSE_DELAY=-1");
+            registry.add("sharding.shards[" + i + "].username", () -> "sa");
+            registry.add("sharding.shards[" + i + "].password", () -> "");
+        }
+        registry.add("sharding.shards[2].joining", () -> "true");
+    }
+
+    @BeforeEach
+    void setUp() {
+        shards = routingDataSource.getShardDataSources();
+        // ddl-auto only reaches the first shard
+        shards.values().forEach(UserTables::create);
+        for (int i = 0; i < USERS; i++) {
+            userRepository.save(newUser(email(i)));
+        }
+    }
+
+    @Test
+    void savesAndReadsEachUserOnItsOwnShard() {
+        for (int i = 0; i < USERS; i++) {
+            String email = email(i);
+            String owner = router.shardFor(email);
+            assertEquals(1, countOn(owner, email));
+            UserEntity user = userRepository.findByEmail(email).orElseThrow();
+            assertEquals(owner, user.getShard());
+            assertTrue(userRepository.existsByEmail(email));
+        }
+        assertEquals(USERS, countOn("a") + countOn("b"));
+        assertEquals(0, countOn("c"));
+    }
+
+    @Test
+    void readsFallBackToTheOldOwnerWhileMigrating() {
+        beginMigrationOntoC();
+
+        String email = movingEmail();
+        String oldOwner = router.previousShardFor(email);
+        UserEntity user = userRepository.findByEmail(email).orElseThrow();
+        assertEquals(oldOwner, user.getShard());
+        assertTrue(userRepository.existsByEmail(email));
+        assertTrue(userRepository.findVersionByEmail(email).isPresent());
+    }
+
+    @Test
+    void saveOfAnUnmovedUserStaysOnTheOldOwnerAndMovesWithIt() {
+        beginMigrationOntoC();
+        String email = movingEmail();
+        String oldOwner = router.previousShardFor(email);
+
+        UserEntity user = userRepository.findByEmail(email).orElseThrow();
+        user.setResetOtp("4321");
+        userRepository.save(user);
+        assertEquals(1, countOn(oldOwner, email));
+
+        new ShardRebalancer(router, shards, store, 0).promote("c");
+
+        assertEquals("4321", new JdbcTemplate(shards.get("c"))
+                .queryForObject("SELECT reset_otp FROM user_details WHERE email = ?", String.class, email));
+        assertEquals(0, countOn(oldOwner, email));
+    }
+
+    @Test
+    void saveOfAUserMovedAwayFailsInsteadOfInsertingItAgain() {
+        beginMigrationOntoC();
+        String email = movingEmail();
+        String oldOwner = router.previousShardFor(email);
+        UserEntity user = userRepository.findByEmail(email).orElseThrow();
+
+        new ShardRebalancer(router, shards, store, 0).promote("c");
+
+        user.setResetOtp("4321");
+        assertThrows(OptimisticLockingFailureException.class, () -> userRepository.save(user));
+        assertEquals(0, countOn(oldOwner, email));
+        assertEquals(1, countOn("c", email));
+    }
+
+    private void beginMigrationOntoC() {
+        assertTrue(store.compareAndSet(router.getVersion(), List.of("a", "b"), List.of("a", "b", "c")));
+        router.apply(store.load());
+    }
+
+    // a user the grown ring hands to c, still on its old owner
+    private String movingEmail() {
+        for (int i = 0; i < USERS; i++) {
+            if ("c".equals(router.shardFor(email(i)))) {
+                return email(i);
+            }
+        }
+        throw new IllegalStateException("no user moves to c");
+    }
+
+    private long countOn(String shard) {
+        return new JdbcTemplate(shards.get(shard)).queryForObject("SELECT COUNT(*) FROM user_details", Long.class);
+    }
+
+    private long countOn(String shard, String email) {
+        return new JdbcTemplate(shards.get(shard))
+                .queryForObject("SELECT COUNT(*) FROM user_details WHERE email = ?", Long.class, email);
+    }
+
+    private static String email(int i) {
+        return "user" + i + "@example.com";
+    }
+
+    private static UserEntity newUser(String email) {
+        return UserEntity.builder()
+                .email(email)
+                .userId(UUID.randomUUID().toString())
+                .name("user")
+                .password("$2a$10$hash")
+                .isAccountVerified(false)
+                .verifyOtpExpireAt(0L)
+                .resetOtpExpireAt(0L)
+                .build();
+    }
+}
@@ -0,0 +1,52 @@
+package com.secure.task.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+class BCryptStrengthStoreTests {
+
+    private BCryptStrengthStore firstNode;
+    private BCryptStrengthStore secondNode;
+    private final AtomicInteger calibrations = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:bcrypt_" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        firstNode = new BCryptStrengthStore(dataSource);
+        secondNode = new BCryptStrengthStore(dataSource);
+        firstNode.createTableIfMissing();
+        secondNode.createTableIfMissing();
+    }
+
+    @Test
+    void firstNodeCalibratesAndEveryOtherNodeUsesItsCost() {
+        assertNull(firstNode.load());
+
+        assertEquals(13, firstNode.loadOrCalibrate(() -> calibrate(13), 10));
+        // a faster machine would have picked a higher cost, it still gets the stored one
+        assertEquals(13, secondNode.loadOrCalibrate(() -> calibrate(15), 10));
+        assertEquals(1, calibrations.get());
+    }
+
+    @Test
+    void raisingTheFloorRaisesTheStoredCost() {
+        firstNode.loadOrCalibrate(() -> calibrate(10), 10);
+
+        assertEquals(12, secondNode.loadOrCalibrate(() -> calibrate(10), 12));
+        assertEquals(12, firstNode.loadOrCalibrate(() -> calibrate(10), 10));
+        assertEquals(1, calibrations.get());
+    }
+
+    private int calibrate(int strength) {
+        calibrations.incrementAndGet();
+        return strength;
+    }
+}
@@ -0,0 +1,150 @@
+package com.secure.task.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.io.Encoders;
+
+// differential test, whatever the fast path accepts jjwt has to accept with the same subject and expiry
+class Hs256TokenVerifierTests {
+
+    private String secret;
+    private JwtUtil jwtUtil;
+    private Hs256TokenVerifier verifier;
+
+    @BeforeEach
+    void setUp() {
+        byte[] key = new byte[32];
+        new Random(7).nextBytes(key);
+        secret = Encoders.BASE64.encode(key);
+
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "SECRET_KEY", secret);
+        jwtUtil.initFastVerifier();
+
+        String probe = token("probe@example.com");
+        verifier = new Hs256TokenVerifier(Decoders.BASE64.decode(secret), probe.substring(0, probe.indexOf('.')));
+    }
+
+    @Test
+    void acceptsOwnTokensLikeJjwt() {
+        for (String email : List.of("someone@gmail.com", "a.b+c@example.co.uk", "x@y.z")) {
+            String token = token(email);
+            Hs256TokenVerifier.VerifiedToken fast = verifier.verify(token);
+
+            assertNotNull(fast);
+            assertEquals(email, fast.subject());
+            assertEquals(fullParse(token).getExpiration().getTime(), fast.expiresAtMillis());
+            assertEquals(email, jwtUtil.extractEmail(token));
+        }
+    }
+
+    @Test
+    void leavesExpiredTokensToJjwt() {
+        String token = Jwts.builder()
+                .setSubject("someone@gmail.com")
+                .setIssuedAt(new Date(System.currentTimeMillis() - 120000))
+                .setExpiration(new Date(System.currentTimeMillis() - 60000))
+                .signWith(SignatureAlgorithm.HS256, secret)
+                .compact();
+
+        assertNull(verifier.verify(token));
+        assertThrows(ExpiredJwtException.class, () -> jwtUtil.extractEmail(token));
+    }
+
+    @Test
+    void leavesUnexpectedShapesToJjwt() {
+        String extraClaim = Jwts.builder()
+                .setSubject("someone@gmail.com")
+                .claim("role", "admin")
+                .setExpiration(new Date(System.currentTimeMillis() + 60000))
+                .signWith(SignatureAlgorithm.HS256, secret)
+                .compact();
+        String otherHeader = Jwts.builder()
+                .setHeaderParam("typ", "JWT")
+                .setSubject("someone@gmail.com")
+                .setExpiration(new Date(System.currentTimeMillis() + 60000))
+                .signWith(SignatureAlgorithm.HS256, secret)
+                .compact();
+        String escapedSubject = Jwts.builder()
+                .setSubject("some\"one@gmail.com")
+                .setExpiration(new Date(System.currentTimeMillis() + 60000))
+                .signWith(SignatureAlgorithm.HS256, secret)
+                .compact();
+
+        for (String token : List.of(extraClaim, otherHeader, escapedSubject)) {
+            assertNull(verifier.verify(token));
+            assertEquals(fullParse(token).getSubject(), jwtUtil.extractEmail(token));
+        }
+    }
+
+    @Test
+    void rejectsForgedTokens() {
+        byte[] otherKey = new byte[32];
+        new Random(8).nextBytes(otherKey);
+        String forged = Jwts.builder()
+                .setSubject("someone@gmail.com")
+                .setExpiration(new Date(System.currentTimeMillis() + 60000))
+                .signWith(SignatureAlgorithm.HS256, Encoders.BASE64.encode(otherKey))
+                .compact();
+
+        assertNull(verifier.verify(forged));
+        assertThrows(JwtException.class, () -> jwtUtil.extractEmail(forged));
+    }
+
+    @Test
+    void agreesWithJjwtOnMutatedTokens() {
+        Random random = new Random(11);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_.=";
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            String token = token("user" + i + "@example.com");
+            tokens.add(token);
+            for (int j = 0; j < 50; j++) {
+                char[] chars = token.toCharArray();
+                chars[random.nextInt(chars.length)] = alphabet.charAt(random.nextInt(alphabet.length()));
+                tokens.add(new String(chars));
+            }
+            tokens.add(token.substring(0, token.length() - 1));
+            tokens.add(token + "A");
+            tokens.add(token.substring(0, token.lastIndexOf('.') + 1));
+        }
+
+        for (String token : tokens) {
+            Hs256TokenVerifier.VerifiedToken fast = verifier.verify(token);
+            if (fast == null) {
+                continue;
+            }
+            Claims full = fullParse(token);
+            assertEquals(full.getSubject(), fast.subject(), token);
+            assertEquals(full.getExpiration().getTime(), fast.expiresAtMillis(), token);
+        }
+    }
+
+    private String token(String email) {
+        return jwtUtil.generateToken(new User(email, "unused", List.of()));
+    }
+
+    private Claims fullParse(String token) {
+        return jwtUtil.extractClaims(token, Function.identity());
+    }
+}
@@ -0,0 +1,97 @@
+package com.secure.task.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class SessionStoreTests {
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void matchesReferenceMapThroughGrowthRemovalAndExpiry(boolean offHeap) {
+        SessionStore store = new SessionStore(1024, offHeap);
+        Map<List<Long>, String> reference = new HashMap<>();
+        List<long[]> keys = new ArrayList<>();
+        Random random = new Random(42);
+        long now = System.currentTimeMillis() + 1000;
+
+        for (int i = 0; i < 50000; i++) {
+            long hi = random.nextLong();
+            long lo = random.nextLong();
+            long expiresAt = i % 3 == 0 ? now - 500 : now + 3600000;
+            store.put(hi, lo, "user" + i, expiresAt);
+            if (expiresAt > now) {
+                reference.put(List.of(hi, lo), "user" + i);
+            }
+            keys.add(new long[] {hi, lo});
+
+            if (i % 5 == 0) {
+                long[] removed = keys.get(random.nextInt(keys.size()));
+                store.remove(removed[0], removed[1]);
+                reference.remove(List.of(removed[0], removed[1]));
+            }
+        }
+
+        for (long[] key : keys) {
+            String expected = reference.get(List.of(key[0], key[1]));
+            String actual = store.get(key[0], key[1], now);
+            assertTrue(Objects.equals(expected, actual), "expected " + expected + " but got " + actual);
+        }
+        assertEquals(reference.size(), store.size());
+        // every subject is distinct here, so expired and removed sessions must have given theirs back
+        store.purgeExpired(now);
+        assertEquals(reference.size(), store.subjectCount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void sessionsOfOneUserShareTheirSubject(boolean offHeap) {
+        SessionStore store = new SessionStore(64, offHeap);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 3000; i++) {
+            store.put(i * 0x9E3779B97F4A7C15L, i, "user" + (i % 10) + "@example.com", now + 60000);
+        }
+        assertEquals(3000, store.size());
+        assertEquals(10, store.subjectCount());
+        assertEquals("user7@example.com", store.get(7 * 0x9E3779B97F4A7C15L, 7, now));
+
+        for (int i = 0; i < 3000; i++) {
+            if (i % 10 != 3) {
+                store.remove(i * 0x9E3779B97F4A7C15L, i);
+            }
+        }
+        assertEquals(1, store.subjectCount());
+        // the freed id and arena space get reused by new subjects
+        store.put(1L, 1L, "someone.else@example.com", now + 60000);
+        assertEquals("someone.else@example.com", store.get(1L, 1L, now));
+        assertEquals("user3@example.com", store.get(13 * 0x9E3779B97F4A7C15L, 13, now));
+        assertEquals(2, store.subjectCount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void expiredAndRemovedSessionsAreGone(boolean offHeap) {
+        SessionStore store = new SessionStore(16, offHeap);
+        long now = System.currentTimeMillis();
+        store.put(1L, 2L, "a@example.com", now + 60000);
+        store.put(3L, 4L, "b@example.com", now + 10);
+
+        assertEquals("a@example.com", store.get(1L, 2L, now));
+        assertNull(store.get(3L, 4L, now + 10));
+        assertTrue(store.remove(1L, 2L));
+        assertFalse(store.remove(1L, 2L));
+        assertNull(store.get(1L, 2L, now));
+        assertEquals(0, store.size());
+    }
+}